@@ -0,0 +1,73 @@
+package com.forcelain.awesomelayoutmanager.sample;
+
+import com.forcelain.awesomelayoutmanager.Benchmark;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks moving an {@link ArticleWindow} through feeds of different sizes and reading the articles
+ * the adapter binds. The results go to build/benchmarks/ArticleWindowBenchmark.csv
+ */
+public class ArticleWindowBenchmarkTest {
+
+    private static final int[] FEED_SIZES = {1000, 10000, 100000};
+    private static final int OPS = 100000;
+    // a fling covers a few pages per frame
+    private static final int SCROLL_DELTA = 200;
+
+    private static final Benchmark benchmark = new Benchmark("ArticleWindowBenchmark");
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        benchmark.write();
+    }
+
+    @Test
+    public void scrollThroughFeed() {
+        for (final int size : FEED_SIZES) {
+            final ArticleWindow window = new ArticleWindow(new ImmediateDataProvider(), size);
+            // an item per step, forwards through the feed and then back
+            benchmark.run("ArticleWindow.moveTo", size, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    int pos = i % (2 * size);
+                    if (pos < size) {
+                        window.moveTo(pos, SCROLL_DELTA);
+                    } else {
+                        window.moveTo(2 * size - 1 - pos, -SCROLL_DELTA);
+                    }
+                    return 0;
+                }
+            });
+            benchmark.run("ArticleWindow.get", size, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    Article article = window.get(i % size);
+                    return article != null ? article.id : 0;
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads the articles synchronously, as if the data were in memory
+     */
+    private static class ImmediateDataProvider implements DataProvider {
+
+        @Override
+        public void loadRange(int offset, int count, Callback callback) {
+            List<Article> articles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Article article = new Article();
+                article.id = offset + i;
+                articles.add(article);
+            }
+            callback.onLoaded(offset, articles);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.forcelain.awesomelayoutmanager.sample;
 
 public class Article {
+    /**
+     * Identifies the article in the feed. Not a part of R.raw.data, set by the DataProvider
+     */
+    public long id;
     public String image;
     public String text;
     public String title;
@@ -1,10 +1,10 @@
 package com.forcelain.awesomelayoutmanager.sample;
 
-import android.content.res.AssetManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
-import android.util.Log;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,17 +13,40 @@ import android.widget.TextView;
 
 import com.forcelain.awesomelayoutmanager.AwesomeViewHolder;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleViewHolder> {
-    private static final String TAG = "ArticleAdapter";
     private static final String SCHEME_ASSETS = "assets://";
+    private static final int KEEP_ALIVE_SECONDS = 5;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor diffExecutor;
+    // the list shown, the lists set later are compared with it
     private List<Article> articles;
+    // the latest list passed to setArticles, shown once its diff is applied
+    private List<Article> submittedArticles;
+    private volatile int generation;
+    private ImageLoader imageLoader;
+    private int imageWidth;
     private OnItemClickListener itemClickListener;
     private View.OnLayoutChangeListener onLayoutChangeListener;
 
+    public ArticleAdapter() {
+        this(new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>()));
+    }
+
+    /**
+     * @param diffExecutor runs the comparisons of the lists
+     */
+    ArticleAdapter(Executor diffExecutor) {
+        this.diffExecutor = diffExecutor;
+        setHasStableIds(true);
+    }
+
     public OnItemClickListener getItemClickListener() {
         return itemClickListener;
     }
@@ -34,6 +57,12 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleV
 
     @Override
     public ArticleAdapter.ArticleViewHolder onCreateViewHolder(ViewGroup parent, int position) {
+        if (imageLoader == null) {
+            imageLoader = new ImageLoader(parent.getContext());
+        }
+        if (imageWidth == 0) {
+            imageWidth = parent.getWidth() > 0 ? parent.getWidth() : parent.getResources().getDisplayMetrics().widthPixels;
+        }
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.article_item, parent, false);
         return new ArticleViewHolder(view);
     }
@@ -41,21 +70,20 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleV
     @Override
     public void onBindViewHolder(final ArticleAdapter.ArticleViewHolder articleViewHolder, final int position) {
         final Article article = articles.get(position);
-        articleViewHolder.textContent.setText(article.text);
-        articleViewHolder.textTitle.setText(article.title + " " + position);
-        if (article.image.startsWith(SCHEME_ASSETS)) {
+        articleViewHolder.cancelImageRequest();
+        if (article == null) {
+            // not loaded yet, the item is rebound when it is
+            articleViewHolder.textContent.setText(null);
+            articleViewHolder.textTitle.setText(String.valueOf(position));
+            articleViewHolder.imageView.setImageDrawable(null);
+        } else {
+            articleViewHolder.textContent.setText(article.text);
+            articleViewHolder.textTitle.setText(article.title + " " + position);
+        }
+        if (article != null && article.image.startsWith(SCHEME_ASSETS)) {
+            // prefetched holders are bound before they are attached, so their images are decoded ahead of time
             String fileName = article.image.replace(SCHEME_ASSETS, "");
-            AssetManager assetManager = articleViewHolder.itemView.getContext().getAssets();
-            InputStream is = null;
-            try {
-                is = assetManager.open(fileName);
-                Bitmap bitmap = BitmapFactory.decodeStream(is);
-                articleViewHolder.imageView.setImageBitmap(bitmap);
-            } catch (IOException e) {
-                Log.e(TAG, Log.getStackTraceString(e));
-            } finally {
-                closeQuietly(is);
-            }
+            articleViewHolder.imageRequest = imageLoader.load(fileName, articleViewHolder.imageView, imageWidth, 0);
         }
         View.OnClickListener clickListener = new View.OnClickListener() {
             @Override
@@ -90,14 +118,10 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleV
         holder.itemView.removeOnLayoutChangeListener(onLayoutChangeListener);
     }
 
-    private void closeQuietly(InputStream is) {
-        if (is != null) {
-            try {
-                is.close();
-            } catch (IOException e) {
-                //ignore
-            }
-        }
+    @Override
+    public void onViewRecycled(ArticleAdapter.ArticleViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.cancelImageRequest();
     }
 
     @Override
@@ -105,9 +129,112 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleV
         return articles == null ? 0 : articles.size();
     }
 
-    public void setArticles(List<Article> articles) {
+    /**
+     * Placeholders of not loaded articles take the position as their id, the same as the article will have
+     */
+    @Override
+    public long getItemId(int position) {
+        Article article = articles.get(position);
+        return article != null ? article.id : position;
+    }
+
+    /**
+     * Show the given articles. The list is compared with the shown one on a background thread and only
+     * the differences are notified. If several lists are set in a row, only the latest one is applied.
+     * The lists must not be changed after they are set, except for an {@link ArticleWindow} which notifies
+     * its changes itself and replaces the current list at once
+     */
+    public void setArticles(final List<Article> articles) {
+        final int generation = ++this.generation;
+        // the lists set before this one and not applied yet are dropped, so the diff goes from the shown list
+        final List<Article> oldArticles = this.articles;
+        submittedArticles = articles;
+        if (oldArticles == null || oldArticles.isEmpty() || articles.isEmpty()
+                || oldArticles instanceof ArticleWindow || articles instanceof ArticleWindow) {
+            applyArticles(articles, null);
+            return;
+        }
+        diffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != ArticleAdapter.this.generation) {
+                    return;
+                }
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new ArticleDiffCallback(oldArticles, articles));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == ArticleAdapter.this.generation) {
+                            applyArticles(articles, diffResult);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Append the next page of articles to the latest list set with {@link #setArticles(List)}
+     */
+    public void addArticles(List<Article> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        List<Article> articles = new ArrayList<>();
+        if (submittedArticles != null) {
+            articles.addAll(submittedArticles);
+        }
+        articles.addAll(page);
+        setArticles(articles);
+    }
+
+    private void applyArticles(List<Article> articles, DiffUtil.DiffResult diffResult) {
+        int oldCount = getItemCount();
         this.articles = articles;
-        notifyDataSetChanged();
+        if (diffResult != null) {
+            diffResult.dispatchUpdatesTo(this);
+        } else if (oldCount == 0) {
+            notifyItemRangeInserted(0, articles.size());
+        } else if (articles.isEmpty()) {
+            notifyItemRangeRemoved(0, oldCount);
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    private static class ArticleDiffCallback extends DiffUtil.Callback {
+
+        private final List<Article> oldArticles;
+        private final List<Article> newArticles;
+
+        ArticleDiffCallback(List<Article> oldArticles, List<Article> newArticles) {
+            this.oldArticles = oldArticles;
+            this.newArticles = newArticles;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldArticles.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newArticles.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldArticles.get(oldItemPosition).id == newArticles.get(newItemPosition).id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            Article oldArticle = oldArticles.get(oldItemPosition);
+            Article newArticle = newArticles.get(newItemPosition);
+            return TextUtils.equals(oldArticle.title, newArticle.title)
+                    && TextUtils.equals(oldArticle.text, newArticle.text)
+                    && TextUtils.equals(oldArticle.image, newArticle.image);
+        }
     }
 
     public static class ArticleViewHolder extends RecyclerView.ViewHolder implements AwesomeViewHolder {
@@ -117,6 +244,7 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleV
         TextView textTitle;
         View readMore;
         View readMoreAction;
+        ImageLoader.Request imageRequest;
 
         ArticleViewHolder(View itemView) {
             super(itemView);
@@ -131,6 +259,13 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ArticleV
         public void onStateChanged(float progress) {
             readMore.setAlpha(1 - progress);
         }
+
+        void cancelImageRequest() {
+            if (imageRequest != null) {
+                imageRequest.cancel();
+                imageRequest = null;
+            }
+        }
     }
 
     public interface OnItemClickListener {
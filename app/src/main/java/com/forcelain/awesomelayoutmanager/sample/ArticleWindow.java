@@ -0,0 +1,129 @@
+package com.forcelain.awesomelayoutmanager.sample;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A list of all the articles of a feed which keeps only a window of them around the anchor position.
+ * The window is a fixed number of pages, so the memory taken does not depend on the size of the feed.
+ * Articles which are not loaded yet are null and shown as placeholders
+ */
+class ArticleWindow extends AbstractList<Article> {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int WINDOW_PAGES = 6;
+    private static final int PAGES_BEHIND = 1;
+    private static final int FAST_SCROLL_PX = 60;
+
+    private final DataProvider dataProvider;
+    private final int size;
+    private final Article[] slots = new Article[PAGE_SIZE * WINDOW_PAGES];
+    private final int[] slotPositions = new int[PAGE_SIZE * WINDOW_PAGES];
+    private final boolean[] pendingPages = new boolean[WINDOW_PAGES];
+    private final int[] pendingPageIndexes = new int[WINDOW_PAGES];
+    private int firstPage;
+    private int lastPage = -1;
+    private OnRangeLoadedListener listener;
+
+    /**
+     * @param size number of articles in the feed
+     */
+    ArticleWindow(DataProvider dataProvider, int size) {
+        this.dataProvider = dataProvider;
+        this.size = size;
+        for (int i = 0; i < slotPositions.length; i++) {
+            slotPositions[i] = -1;
+        }
+    }
+
+    void setOnRangeLoadedListener(OnRangeLoadedListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the article or null if it is not loaded
+     */
+    @Override
+    public Article get(int location) {
+        if (location < 0 || location >= size) {
+            throw new IndexOutOfBoundsException("location: " + location + ", size: " + size);
+        }
+        int slot = location % slots.length;
+        return slotPositions[slot] == location ? slots[slot] : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Move the window to the given anchor position. The window reaches further in the direction of the scroll
+     * the faster it goes, and the pages which fall out of it are dropped
+     * @param delta distance of the last scroll step in pixels, negative when scrolling back
+     */
+    void moveTo(int anchorPos, int delta) {
+        int anchorPage = anchorPos / PAGE_SIZE;
+        int maxPagesAhead = WINDOW_PAGES - PAGES_BEHIND - 1;
+        int pagesAhead = Math.min(1 + Math.abs(delta) / FAST_SCROLL_PX, maxPagesAhead);
+        int pagesBehind = WINDOW_PAGES - 1 - pagesAhead;
+        if (delta < 0) {
+            firstPage = anchorPage - pagesAhead;
+            lastPage = anchorPage + pagesBehind;
+        } else {
+            firstPage = anchorPage - pagesBehind;
+            lastPage = anchorPage + pagesAhead;
+        }
+        firstPage = Math.max(firstPage, 0);
+        lastPage = Math.min(lastPage, (size - 1) / PAGE_SIZE);
+
+        // the anchor's page first, then outwards in the direction of the scroll
+        loadPage(anchorPage);
+        for (int i = 1; i < WINDOW_PAGES; i++) {
+            loadPage(delta < 0 ? anchorPage - i : anchorPage + i);
+            loadPage(delta < 0 ? anchorPage + i : anchorPage - i);
+        }
+    }
+
+    private void loadPage(final int page) {
+        if (page < firstPage || page > lastPage) {
+            return;
+        }
+        final int offset = page * PAGE_SIZE;
+        int pendingIndex = page % WINDOW_PAGES;
+        if (get(offset) != null || (pendingPages[pendingIndex] && pendingPageIndexes[pendingIndex] == page)) {
+            return;
+        }
+        pendingPages[pendingIndex] = true;
+        pendingPageIndexes[pendingIndex] = page;
+        dataProvider.loadRange(offset, Math.min(PAGE_SIZE, size - offset), new DataProvider.Callback() {
+            @Override
+            public void onLoaded(int offset, List<Article> articles) {
+                onPageLoaded(page, offset, articles);
+            }
+        });
+    }
+
+    private void onPageLoaded(int page, int offset, List<Article> articles) {
+        int pendingIndex = page % WINDOW_PAGES;
+        if (pendingPageIndexes[pendingIndex] == page) {
+            pendingPages[pendingIndex] = false;
+        }
+        if (page < firstPage || page > lastPage) {
+            // the window has moved away while the page was loading
+            return;
+        }
+        for (int i = 0, count = articles.size(); i < count; i++) {
+            int slot = (offset + i) % slots.length;
+            slots[slot] = articles.get(i);
+            slotPositions[slot] = offset + i;
+        }
+        if (listener != null && !articles.isEmpty()) {
+            listener.onRangeLoaded(offset, articles.size());
+        }
+    }
+
+    interface OnRangeLoadedListener {
+        void onRangeLoaded(int offset, int count);
+    }
+}
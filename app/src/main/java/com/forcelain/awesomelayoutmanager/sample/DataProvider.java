@@ -3,5 +3,14 @@ package com.forcelain.awesomelayoutmanager.sample;
 import java.util.List;
 
 public interface DataProvider {
-    List<Article> getArticles(int limit);
+
+    /**
+     * Load the articles in [offset, offset + count) in the background
+     * @param callback is called on the main thread. It gets fewer articles than requested at the end of the data
+     */
+    void loadRange(int offset, int count, Callback callback);
+
+    interface Callback {
+        void onLoaded(int offset, List<Article> articles);
+    }
 }
@@ -1,30 +1,147 @@
 package com.forcelain.awesomelayoutmanager.sample;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serves the articles from R.raw.data repeated up to the size of the feed. The file is parsed with a streaming reader
+ * only as far as the requested pages need, and the parsed articles are kept for the following requests
+ */
 public class FakeDataProvider implements DataProvider {
 
+    private static final String TAG = "FakeDataProvider";
+    private static final int REPEAT = 5;
+    private static final int KEEP_ALIVE_SECONDS = 5;
+
     private final Context context;
+    private final int size;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+    // touched on the executor's thread only
+    private final List<Article> parsed = new ArrayList<>();
+    private JsonReader reader;
+    private boolean parsedAll;
 
+    /**
+     * The feed repeats the articles from R.raw.data 5 times
+     */
     public FakeDataProvider(Context context) {
+        this(context, -1);
+    }
+
+    /**
+     * @param size number of articles in the feed. The articles from R.raw.data are repeated to fill it
+     */
+    public FakeDataProvider(Context context, int size) {
         this.context = context.getApplicationContext();
+        this.size = size;
     }
 
     @Override
-    public List<Article> getArticles(int limit) {
-        Gson gson = new Gson();
-        Article[] articles = gson.fromJson(new InputStreamReader(context.getResources().openRawResource(R.raw.data)), Article[].class);
-        ArrayList<Article> list = new ArrayList<>();
-        int max = limit == 0 ? articles.length * 5 : Math.min(articles.length * 5, limit);
-        for (int i = 0; i < max; i++) {
-            list.add(articles[i % articles.length]);
+    public void loadRange(final int offset, final int count, final Callback callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Article> articles = getRange(offset, count);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLoaded(offset, articles);
+                    }
+                });
+            }
+        });
+    }
+
+    private List<Article> getRange(int offset, int count) {
+        parseUntil(offset + count);
+        int total = parsed.size();
+        if (parsedAll && total > 0) {
+            total = size >= 0 ? size : parsed.size() * REPEAT;
+        }
+        int end = Math.min(offset + count, total);
+        List<Article> articles = new ArrayList<>(Math.max(end - offset, 0));
+        for (int i = offset; i < end; i++) {
+            Article source = parsed.get(i % parsed.size());
+            Article article = new Article();
+            article.id = i;
+            article.image = source.image;
+            article.text = source.text;
+            article.title = source.title;
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    /**
+     * Read the articles until there are the given number of them or the data ends
+     */
+    private void parseUntil(int count) {
+        try {
+            if (reader == null && !parsedAll) {
+                reader = new JsonReader(new InputStreamReader(context.getResources().openRawResource(R.raw.data), "UTF-8"));
+                reader.beginArray();
+            }
+            while (!parsedAll && parsed.size() < count) {
+                if (reader.hasNext()) {
+                    parsed.add(readArticle(reader));
+                } else {
+                    reader.endArray();
+                    closeReader();
+                    parsedAll = true;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            closeReader();
+            parsedAll = true;
+        }
+    }
+
+    private Article readArticle(JsonReader reader) throws IOException {
+        Article article = new Article();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "image":
+                    article.image = reader.nextString();
+                    break;
+                case "text":
+                    article.text = reader.nextString();
+                    break;
+                case "title":
+                    article.title = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return article;
+    }
+
+    private void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                //ignore
+            }
+            reader = null;
         }
-        return list;
     }
 }
@@ -0,0 +1,165 @@
+package com.forcelain.awesomelayoutmanager.sample;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes images from the assets on background threads, downsampled to the size they are shown at,
+ * and keeps the decoded bitmaps in a memory cache limited by their size in bytes
+ */
+class ImageLoader {
+
+    private static final String TAG = "ImageLoader";
+    private static final int THREADS = 2;
+    private static final int KEEP_ALIVE_SECONDS = 5;
+    private static final int CACHE_MEMORY_PART = 8;
+
+    private final AssetManager assetManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor executor;
+    private final LruCache<String, Bitmap> cache;
+
+    ImageLoader(Context context) {
+        assetManager = context.getApplicationContext().getAssets();
+        executor = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        int cacheSize = (int) (Runtime.getRuntime().maxMemory() / CACHE_MEMORY_PART);
+        cache = new LruCache<String, Bitmap>(cacheSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Show the asset in the given view. A cached bitmap is set right away,
+     * otherwise the view is cleared and gets the bitmap once it is decoded
+     * @param width minimal width of the decoded bitmap
+     * @param height minimal height of the decoded bitmap
+     * @return the request to cancel when the view is reused, or null if the bitmap has been taken from the cache
+     */
+    Request load(String fileName, ImageView imageView, int width, int height) {
+        String key = fileName + '@' + width + 'x' + height;
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) {
+            imageView.setImageBitmap(bitmap);
+            return null;
+        }
+        imageView.setImageDrawable(null);
+        Request request = new Request(fileName, key, imageView, width, height);
+        request.future = executor.submit(request);
+        return request;
+    }
+
+    private Bitmap decode(String fileName, int width, int height) {
+        InputStream is = null;
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            is = assetManager.open(fileName);
+            BitmapFactory.decodeStream(is, null, options);
+            closeQuietly(is);
+
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+            options.inJustDecodeBounds = false;
+            is = assetManager.open(fileName);
+            return BitmapFactory.decodeStream(is, null, options);
+        } catch (IOException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            return null;
+        } finally {
+            closeQuietly(is);
+        }
+    }
+
+    /**
+     * @return the largest power of two which keeps the decoded bitmap at least as large as requested
+     */
+    private int calculateInSampleSize(int outWidth, int outHeight, int width, int height) {
+        int inSampleSize = 1;
+        while (outWidth / (inSampleSize * 2) >= width && outHeight / (inSampleSize * 2) >= height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private void closeQuietly(InputStream is) {
+        if (is != null) {
+            try {
+                is.close();
+            } catch (IOException e) {
+                //ignore
+            }
+        }
+    }
+
+    class Request implements Runnable {
+
+        private final String fileName;
+        private final String key;
+        private final ImageView imageView;
+        private final int width;
+        private final int height;
+        private volatile boolean canceled;
+        private Future<?> future;
+
+        Request(String fileName, String key, ImageView imageView, int width, int height) {
+            this.fileName = fileName;
+            this.key = key;
+            this.imageView = imageView;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * The request is dropped if it is still queued. A decoding in progress still puts the bitmap into the cache,
+         * but the view is left untouched
+         */
+        void cancel() {
+            canceled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (canceled) {
+                return;
+            }
+            Bitmap bitmap = cache.get(key);
+            if (bitmap == null) {
+                bitmap = decode(fileName, width, height);
+                if (bitmap == null) {
+                    return;
+                }
+                cache.put(key, bitmap);
+            }
+            final Bitmap result = bitmap;
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!canceled) {
+                        imageView.setImageBitmap(result);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -8,14 +8,26 @@ import android.view.MenuItem;
 
 import com.forcelain.awesomelayoutmanager.AwesomeLayoutManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final int PAGE_SIZE = 10;
+    private static final int LOAD_MORE_DISTANCE = 5;
+    private static final int FEED_SIZE = 100000;
+
     private DataProvider dataProvider;
+    private DataProvider feedProvider;
+    private ArticleWindow articleWindow;
     private AwesomeLayoutManager layoutManager;
     private ArticleAdapter adapter;
     private RecyclerView recyclerView;
+    private int limit;
+    private int loadedCount;
+    private int generation;
+    private boolean loading;
+    private boolean loadedAll;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -31,8 +43,23 @@ public class MainActivity extends AppCompatActivity {
         adapter = new ArticleAdapter();
         recyclerView.setAdapter(adapter);
         dataProvider = new FakeDataProvider(this);
-        List<Article> articles = dataProvider.getArticles(0);
-        adapter.setArticles(articles);
+        feedProvider = new FakeDataProvider(this, FEED_SIZE);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int anchorPos = layoutManager.getAnchorPosition();
+                if (anchorPos == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                if (articleWindow != null) {
+                    articleWindow.moveTo(anchorPos, dx + dy);
+                } else if (anchorPos >= loadedCount - LOAD_MORE_DISTANCE) {
+                    // the adapter may not show the loaded pages yet while their diff is calculated
+                    loadMore();
+                }
+            }
+        });
+        showFeed();
         adapter.setItemClickListener(new ArticleAdapter.OnItemClickListener() {
             @Override
             public void onItemClicked(int pos) {
@@ -51,24 +78,95 @@ public class MainActivity extends AppCompatActivity {
     public boolean onOptionsItemSelected(MenuItem item) {
         switch (item.getItemId()) {
             case R.id.menu_item_one:
-                adapter.setArticles(dataProvider.getArticles(1));
+                reload(1);
                 return true;
             case R.id.menu_item_two:
-                adapter.setArticles(dataProvider.getArticles(2));
+                reload(2);
+                return true;
+            case R.id.menu_item_paged:
+                reload(0);
                 return true;
             case R.id.menu_item_many:
-                adapter.setArticles(dataProvider.getArticles(0));
+                showFeed();
                 return true;
             case R.id.menu_goto_first:
-                recyclerView.scrollToPosition(0);
+                recyclerView.smoothScrollToPosition(0);
                 return true;
             case R.id.menu_goto_last:
-                recyclerView.scrollToPosition(adapter.getItemCount() - 1);
+                recyclerView.smoothScrollToPosition(adapter.getItemCount() - 1);
                 return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Drop the loaded articles and start loading them from the beginning
+     * @param limit maximum number of articles, 0 is for all of them
+     */
+    private void reload(int limit) {
+        this.limit = limit;
+        dropArticles();
+        loadedAll = false;
+        loadedCount = 0;
+        adapter.setArticles(new ArrayList<Article>());
+        loadMore();
+    }
+
+    /**
+     * Show a long feed which keeps only a window of the articles around the anchor in memory
+     */
+    private void showFeed() {
+        dropArticles();
+        loadedAll = true;
+        articleWindow = new ArticleWindow(feedProvider, FEED_SIZE);
+        articleWindow.setOnRangeLoadedListener(new ArticleWindow.OnRangeLoadedListener() {
+            @Override
+            public void onRangeLoaded(int offset, int count) {
+                adapter.notifyItemRangeChanged(offset, count);
+            }
+        });
+        adapter.setArticles(articleWindow);
+        articleWindow.moveTo(0, 0);
+    }
+
+    /**
+     * Make the pages which are still loading for the current articles be ignored
+     */
+    private void dropArticles() {
+        generation++;
+        loading = false;
+        if (articleWindow != null) {
+            articleWindow.setOnRangeLoadedListener(null);
+            articleWindow = null;
+        }
+    }
+
+    private void loadMore() {
+        if (loading || loadedAll || dataProvider == null) {
+            return;
+        }
+        int offset = loadedCount;
+        final int count = limit == 0 ? PAGE_SIZE : Math.min(PAGE_SIZE, limit - offset);
+        if (count <= 0) {
+            loadedAll = true;
+            return;
+        }
+        loading = true;
+        final int requestGeneration = generation;
+        dataProvider.loadRange(offset, count, new DataProvider.Callback() {
+            @Override
+            public void onLoaded(int offset, List<Article> articles) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                loadedAll = articles.size() < count;
+                loadedCount += articles.size();
+                adapter.addArticles(articles);
+            }
+        });
+    }
+
     @Override
     protected void onDestroy() {
         dataProvider = null;
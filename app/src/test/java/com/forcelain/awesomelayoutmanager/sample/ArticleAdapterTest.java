@@ -0,0 +1,147 @@
+package com.forcelain.awesomelayoutmanager.sample;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lists set while an earlier one is still compared must end up notified as a change of the shown list
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class ArticleAdapterTest {
+
+    private QueueExecutor executor;
+    private ArticleAdapter adapter;
+    private TrackingObserver observer;
+
+    @Before
+    public void setUp() {
+        executor = new QueueExecutor();
+        adapter = new ArticleAdapter(executor);
+        observer = new TrackingObserver();
+        adapter.registerAdapterDataObserver(observer);
+        adapter.setArticles(createArticles(0, 5));
+        assertEquals(5, observer.count);
+    }
+
+    @Test
+    public void secondListSetBeforeFirstIsCompared() {
+        List<Article> latest = createArticles(3, 6);
+        adapter.setArticles(createArticles(0, 8));
+        adapter.setArticles(latest);
+        executor.runAll();
+        ShadowLooper.runUiThreadTasks();
+
+        assertShown(latest);
+    }
+
+    @Test
+    public void secondListSetBeforeFirstIsApplied() {
+        List<Article> latest = createArticles(3, 6);
+        ShadowLooper.pauseMainLooper();
+        adapter.setArticles(createArticles(0, 8));
+        executor.runAll();
+        adapter.setArticles(latest);
+        executor.runAll();
+        ShadowLooper.unPauseMainLooper();
+
+        assertShown(latest);
+    }
+
+    @Test
+    public void pagesAddedWhileDiffIsPending() {
+        List<Article> latest = createArticles(0, 25);
+        adapter.addArticles(createArticles(5, 10));
+        adapter.addArticles(createArticles(15, 10));
+        executor.runAll();
+        ShadowLooper.runUiThreadTasks();
+
+        assertShown(latest);
+    }
+
+    private void assertShown(List<Article> articles) {
+        assertEquals(articles.size(), adapter.getItemCount());
+        assertEquals("items notified", articles.size(), observer.count);
+        for (int i = 0; i < articles.size(); i++) {
+            assertEquals(articles.get(i).id, adapter.getItemId(i));
+        }
+    }
+
+    private static List<Article> createArticles(int firstId, int count) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Article article = new Article();
+            article.id = firstId + i;
+            article.title = "title " + article.id;
+            article.text = "text " + article.id;
+            article.image = "image " + article.id;
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    /**
+     * Follows the number of items through the notifications, which must stay within it
+     */
+    private class TrackingObserver extends RecyclerView.AdapterDataObserver {
+
+        int count;
+
+        @Override
+        public void onChanged() {
+            count = adapter.getItemCount();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            assertTrue("changed " + positionStart + "+" + itemCount + " of " + count, positionStart + itemCount <= count);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            assertTrue("inserted at " + positionStart + " of " + count, positionStart <= count);
+            count += itemCount;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            assertTrue("removed " + positionStart + "+" + itemCount + " of " + count, positionStart + itemCount <= count);
+            count -= itemCount;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            assertTrue("moved " + fromPosition + " to " + toPosition + " of " + count,
+                    fromPosition < count && toPosition < count);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.forcelain.awesomelayoutmanager.sample;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleWindowTest {
+
+    private static final int FEED_SIZE = 100000;
+    // ArticleWindow's WINDOW_PAGES * PAGE_SIZE
+    private static final int MAX_LOADED = 60;
+
+    @Test
+    public void loadedArticlesDoNotDependOnFeedSize() {
+        CountingDataProvider dataProvider = new CountingDataProvider();
+        ArticleWindow window = new ArticleWindow(dataProvider, FEED_SIZE);
+        for (int pos = 0; pos < FEED_SIZE; pos += 7) {
+            window.moveTo(pos, 120);
+            if (pos % 10000 == 0) {
+                assertTrue("articles kept at " + pos, countLoaded(window) <= MAX_LOADED);
+            }
+        }
+        window.moveTo(FEED_SIZE - 1, 120);
+
+        assertTrue(countLoaded(window) <= MAX_LOADED);
+        assertNotNull(window.get(FEED_SIZE - 1));
+        assertNull(window.get(0));
+        // each page is loaded once on the way
+        assertEquals(FEED_SIZE, dataProvider.loaded);
+    }
+
+    @Test
+    public void pageLoadedAfterWindowMovedAwayIsDropped() {
+        DelayedDataProvider dataProvider = new DelayedDataProvider();
+        ArticleWindow window = new ArticleWindow(dataProvider, FEED_SIZE);
+        window.moveTo(0, 0);
+        window.moveTo(FEED_SIZE / 2, 0);
+        dataProvider.deliverAll();
+
+        assertNull(window.get(0));
+        assertNotNull(window.get(FEED_SIZE / 2));
+        assertTrue(countLoaded(window) <= MAX_LOADED);
+    }
+
+    private static int countLoaded(ArticleWindow window) {
+        int loaded = 0;
+        for (int pos = 0; pos < window.size(); pos++) {
+            if (window.get(pos) != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private static List<Article> createArticles(int offset, int count) {
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Article article = new Article();
+            article.id = offset + i;
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    private static class CountingDataProvider implements DataProvider {
+
+        int loaded;
+
+        @Override
+        public void loadRange(int offset, int count, Callback callback) {
+            loaded += count;
+            callback.onLoaded(offset, createArticles(offset, count));
+        }
+    }
+
+    private static class DelayedDataProvider implements DataProvider {
+
+        private final List<int[]> ranges = new ArrayList<>();
+        private final List<Callback> callbacks = new ArrayList<>();
+
+        @Override
+        public void loadRange(int offset, int count, Callback callback) {
+            ranges.add(new int[]{offset, count});
+            callbacks.add(callback);
+        }
+
+        void deliverAll() {
+            for (int i = 0; i < ranges.size(); i++) {
+                int[] range = ranges.get(i);
+                callbacks.get(i).onLoaded(range[0], createArticles(range[0], range[1]));
+            }
+        }
+    }
+}
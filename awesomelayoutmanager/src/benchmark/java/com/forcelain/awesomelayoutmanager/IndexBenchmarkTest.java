@@ -0,0 +1,146 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Benchmarks the lookups a layout pass makes in {@link OffsetIndex} and {@link StableIdIndex}.
+ * The results go to build/benchmarks/IndexBenchmark.csv
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class IndexBenchmarkTest {
+
+    private static final int[] ITEM_COUNTS = {1000, 10000, 100000};
+    private static final int OPS = 100000;
+    private static final int DEFAULT_SIZE = 300;
+
+    private static final Benchmark benchmark = new Benchmark("IndexBenchmark");
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        benchmark.write();
+    }
+
+    @Test
+    public void offsetIndex() {
+        for (final int count : ITEM_COUNTS) {
+            final OffsetIndex index = new OffsetIndex();
+            index.reset(count, DEFAULT_SIZE);
+            final int[] positions = randomPositions(count);
+            final int[] sizes = randomPositions(DEFAULT_SIZE);
+
+            benchmark.run("OffsetIndex.set", count, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    index.set(positions[i], sizes[i]);
+                    return 0;
+                }
+            });
+            benchmark.run("OffsetIndex.getOffset", count, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    return index.getOffset(positions[i]);
+                }
+            });
+            final int total = index.getTotal();
+            benchmark.run("OffsetIndex.findIndex", count, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    return index.findIndex((int) ((long) positions[i] * total / count));
+                }
+            });
+            benchmark.run("OffsetIndex.ensure", count, 100, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    // grows the index by one item, as an append does
+                    index.ensure(count + (i & 1), DEFAULT_SIZE);
+                    return index.getTotal();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void stableIdIndex() {
+        for (int count : ITEM_COUNTS) {
+            final IdAdapter adapter = new IdAdapter(count);
+            final StableIdIndex index = new StableIdIndex();
+            final int[] positions = randomPositions(count);
+
+            benchmark.run("StableIdIndex.find.hit", count, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    return index.find(adapter, adapter.getItemId(positions[i]), positions[i]);
+                }
+            });
+            // an item inserted before the anchor moves it off the position it is expected at
+            benchmark.run("StableIdIndex.find.miss", count, OPS, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    return index.find(adapter, adapter.getItemId(positions[i]), positions[i] + 1);
+                }
+            });
+            benchmark.run("StableIdIndex.rebuild", count, 20, new Benchmark.Op() {
+                @Override
+                public long run(int i) {
+                    index.invalidate();
+                    return index.find(adapter, adapter.getItemId(positions[i]), RecyclerView.NO_POSITION);
+                }
+            });
+            assertEquals(positions[0], index.find(adapter, adapter.getItemId(positions[0]), RecyclerView.NO_POSITION));
+        }
+    }
+
+    private static int[] randomPositions(int bound) {
+        Random random = new Random(bound);
+        int[] positions = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            positions[i] = random.nextInt(bound);
+        }
+        return positions;
+    }
+
+    /**
+     * Has ids in no particular order and never creates a view
+     */
+    private static class IdAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int count;
+
+        IdAdapter(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position * 0x9E3779B97F4A7C15L;
+        }
+
+        @Override
+        public int getItemCount() {
+            return count;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
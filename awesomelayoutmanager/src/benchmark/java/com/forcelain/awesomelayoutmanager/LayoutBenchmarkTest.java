@@ -0,0 +1,145 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Benchmarks the per-frame work of the layout manager over 1k, 10k and 100k items in VERTICAL, grid and HORIZONTAL
+ * mode: scroll frames, transition frames and the anchor lookup. Frames per second are 1e9 / ns_per_op, bytes_per_op
+ * is the allocation rate per frame. The results go to build/benchmarks/LayoutBenchmark.csv
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class LayoutBenchmarkTest {
+
+    private static final int[] ITEM_COUNTS = {1000, 10000, 100000};
+    private static final String[] MODES = {"vertical", "grid", "horizontal"};
+    private static final int GRID_SPAN_COUNT = 3;
+    private static final int ITEM_HEIGHT = 300;
+    private static final int SCROLL_OPS = 20000;
+    private static final int SCROLL_STEP = 37;
+    // the scroll goes forwards for this many frames and then back, so it never reaches the end of the items
+    private static final int FRAMES_PER_SWEEP = 200;
+    private static final int TRANSITION_OPS = 5000;
+    // frames of a transition at 60 fps with the default duration
+    private static final int TRANSITION_FRAMES = 24;
+    private static final int ANCHOR_OPS = 100000;
+
+    private static final Benchmark benchmark = new Benchmark("LayoutBenchmark");
+
+    private AwesomeLayoutManager layoutManager;
+    private RecyclerView.Recycler recycler;
+    private RecyclerView.State state;
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        benchmark.write();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void scrollFrames() throws Exception {
+        for (String mode : MODES) {
+            for (int count : ITEM_COUNTS) {
+                attach(mode, count);
+                final boolean horizontal = layoutManager.getOrientation() == AwesomeLayoutManager.Orientation.HORIZONTAL;
+                benchmark.run("scroll." + mode, count, SCROLL_OPS, new Benchmark.Op() {
+                    @Override
+                    public long run(int i) {
+                        int delta = i / FRAMES_PER_SWEEP % 2 == 0 ? SCROLL_STEP : -SCROLL_STEP;
+                        return horizontal
+                                ? layoutManager.scrollHorizontallyBy(delta, recycler, state)
+                                : layoutManager.scrollVerticallyBy(delta, recycler, state);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Steps the progress of a transition back and forth. An animator tick of openItem and close does the same work
+     */
+    @Test
+    public void transitionFrames() throws Exception {
+        for (String mode : MODES) {
+            for (int count : ITEM_COUNTS) {
+                attach(mode, count);
+                boolean started = layoutManager.getOrientation() == AwesomeLayoutManager.Orientation.VERTICAL
+                        ? layoutManager.beginOpen(layoutManager.getAnchorPosition())
+                        : layoutManager.beginClose();
+                assertTrue(started);
+                String name = layoutManager.getOrientation() == AwesomeLayoutManager.Orientation.VERTICAL
+                        ? "openItem." : "close.";
+                benchmark.run(name + mode, count, TRANSITION_OPS, new Benchmark.Op() {
+                    @Override
+                    public long run(int i) {
+                        int frame = i % (2 * TRANSITION_FRAMES);
+                        int progressFrames = frame < TRANSITION_FRAMES ? frame + 1 : 2 * TRANSITION_FRAMES - frame;
+                        layoutManager.setTransitionProgress((float) progressFrames / TRANSITION_FRAMES);
+                        return 0;
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void anchorView() throws Exception {
+        for (String mode : MODES) {
+            for (int count : ITEM_COUNTS) {
+                attach(mode, count);
+                benchmark.run("getAnchorView." + mode, count, ANCHOR_OPS, new Benchmark.Op() {
+                    @Override
+                    public long run(int i) {
+                        return layoutManager.getPosition(layoutManager.getAnchorView());
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Lays out the items in the given mode a part of a page away from the start. The main looper is paused
+     * afterwards, so the traversals the frames schedule stay pending as they do between two frames
+     */
+    private void attach(String mode, int itemCount) throws Exception {
+        ShadowLooper.unPauseMainLooper();
+        layoutManager = new AwesomeLayoutManager();
+        if (mode.equals("grid")) {
+            layoutManager.setSpanCount(GRID_SPAN_COUNT);
+        } else if (mode.equals("horizontal")) {
+            layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        }
+        RecyclerView recyclerView = TestLayouts.attach(layoutManager, new TestAdapter(itemCount, ITEM_HEIGHT));
+        recycler = (RecyclerView.Recycler) readField(recyclerView, "mRecycler");
+        state = (RecyclerView.State) readField(recyclerView, "mState");
+        ShadowLooper.pauseMainLooper();
+        if (mode.equals("horizontal")) {
+            layoutManager.scrollHorizontallyBy(TestLayouts.WIDTH / 3, recycler, state);
+        } else {
+            layoutManager.scrollVerticallyBy(ITEM_HEIGHT / 2, recycler, state);
+        }
+    }
+
+    private static Object readField(RecyclerView recyclerView, String name) throws Exception {
+        Field field = RecyclerView.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(recyclerView);
+    }
+}
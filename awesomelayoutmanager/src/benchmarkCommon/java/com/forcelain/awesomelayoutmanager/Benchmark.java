@@ -0,0 +1,93 @@
+package com.forcelain.awesomelayoutmanager;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Times operations on a plain JVM and writes the results as CSV to build/benchmarks/&lt;name&gt;.csv,
+ * one row per case: benchmark,items,ns_per_op,bytes_per_op. Each case is warmed up first, the time of the best round
+ * and the allocations per operation over all the rounds are reported. bytes_per_op is -1 if the JVM does not count
+ * the allocations of a thread.
+ * The benchmarks are in the benchmark source sets, which are compiled and run only by {@code gradle test -Pbenchmark}
+ */
+public final class Benchmark {
+
+    private static final File OUTPUT_DIR = new File("build/benchmarks");
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private final String name;
+    private final StringBuilder csv = new StringBuilder("benchmark,items,ns_per_op,bytes_per_op\n");
+    private final com.sun.management.ThreadMXBean allocationBean;
+    // keeps the results of the operations alive, so that the JIT cannot drop them
+    private long sink;
+
+    public Benchmark(String name) {
+        this.name = name;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            allocationBean = null;
+        }
+    }
+
+    /**
+     * @param ops number of operations per round, {@code op} gets the index of the operation
+     * @return nanoseconds per operation of the fastest round
+     */
+    public double run(String benchmark, int items, int ops, Op op) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(ops, op);
+        }
+        long startBytes = allocatedBytes();
+        // the second call measures what a call itself allocates
+        long overhead = allocatedBytes() - startBytes;
+        startBytes = allocatedBytes();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, runRound(ops, op));
+        }
+        double bytesPerOp = allocationBean != null
+                ? Math.max(allocatedBytes() - startBytes - overhead, 0) / ((double) ops * ROUNDS)
+                : -1;
+        double nsPerOp = (double) best / ops;
+        csv.append(benchmark).append(',').append(items).append(',').append(nsPerOp)
+                .append(',').append(bytesPerOp).append('\n');
+        return nsPerOp;
+    }
+
+    private long runRound(int ops, Op op) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            sink += op.run(i);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long allocatedBytes() {
+        return allocationBean != null ? allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    public void write() throws IOException {
+        if (!OUTPUT_DIR.isDirectory() && !OUTPUT_DIR.mkdirs()) {
+            throw new IOException("cannot create " + OUTPUT_DIR);
+        }
+        Writer writer = new FileWriter(new File(OUTPUT_DIR, name + ".csv"));
+        try {
+            writer.write(csv.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    public interface Op {
+        long run(int i);
+    }
+}
@@ -4,32 +4,79 @@ import android.animation.Animator;
 import android.animation.ValueAnimator;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.LinearSmoothScroller;
 import android.support.v7.widget.RecyclerView;
-import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.Display;
 import android.view.View;
 import android.view.ViewGroup;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
-public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
+public class AwesomeLayoutManager extends RecyclerView.LayoutManager implements RecyclerView.SmoothScroller.ScrollVectorProvider {
 
     public enum Orientation {VERTICAL, HORIZONTAL}
 
     private static final float SCALE_THRESHOLD_PERCENT = 0.66f;
     private static final int TRANSITION_DURATION_MS = 400;
     private static final float ITEM_HEIGHT_PERCENT = 0.75f;
+    private static final int OFFSCREEN_PAGES = 2;
+    private static final float DEFAULT_REFRESH_RATE = 60;
+    private static final float MIN_REFRESH_RATE = 30;
+    private static final float LAYER_SCALE_THRESHOLD = 0.9f;
+    private static final int SMOOTH_SCROLL_ITEMS = 3;
+    private static final int PAGES_PER_FLING = 1;
+    private static final float SETTLE_VELOCITY = 1f;
+    private static final int DEFAULT_POOL_SIZE = 5;
+    // RecyclerView's default view cache size
+    private static final int VIEW_CACHE_SIZE = 2;
     private RecyclerView recyclerView;
-    private int scrollStartPos;
-    private SparseArray<View> viewCache = new SparseArray<>();
+    private final PaginationSnapHelper snapHelper = new PaginationSnapHelper(this);
+    private int maxPagesPerFling = PAGES_PER_FLING;
+    private int flingVelocityThreshold;
     private Orientation orientation = Orientation.VERTICAL;
     private int anchorPos;
+    private int anchorOffset;
+    private long anchorId = RecyclerView.NO_ID;
     private boolean pagination;
     private float scaleThreshold = SCALE_THRESHOLD_PERCENT;
     private float pageHeightFactor = ITEM_HEIGHT_PERCENT;
+    private float pageWidthFactor = 1f;
+    private int pageMargin;
     private int transitionDuration = TRANSITION_DURATION_MS;
-    private int offScreenPages = 0;
+    private int offScreenPages = OFFSCREEN_PAGES;
+    private int spanCount = 1;
+    private int extraLayoutSpace;
+    private TransitionDriver transitionDriver;
+    private int transitionPrefetchPos = RecyclerView.NO_POSITION;
+    private final PagePrefetcher pagePrefetcher = new PagePrefetcher();
+    private int committedTransitionPos = RecyclerView.NO_POSITION;
+    private int anchorIndexHint;
+    private final Rect decorRect = new Rect();
+    private final OffsetIndex offsetIndex = new OffsetIndex();
+    private final StableIdIndex stableIdIndex = new StableIdIndex();
+    private final ArrayList<View> layerViews = new ArrayList<>();
+    private final SparseIntArray poolSizes = new SparseIntArray();
+    private final SparseIntArray childTypeCounts = new SparseIntArray();
+    private RecyclerView.RecycledViewPool sizedPool;
+    private boolean flingLayersEnabled;
+    private boolean flingLayersActive;
+    private LayoutMetricsListener metricsListener;
+    private int boundCount;
+    private int recycledCount;
+    private int measuredCount;
+    private int transitionFrames;
+    private int droppedTransitionFrames;
+    private long transitionStartNanos;
+    private long lastTransitionFrameNanos;
+    private long frameIntervalNanos = (long) (1e9 / DEFAULT_REFRESH_RATE);
 
     /**
      * @see #setTransitionDuration(int)
@@ -64,6 +111,40 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
         this.pagination = pagination;
     }
 
+    /**
+     * @see #setMaxPagesPerFling(int)
+     * @return maximum number of pages a fling can move in pagination mode
+     */
+    public int getMaxPagesPerFling() {
+        return maxPagesPerFling;
+    }
+
+    /**
+     * Set how many pages a fast fling can move in pagination mode.
+     * The number of pages is estimated from the fling's velocity
+     * @param maxPagesPerFling at least 1 (1 by default)
+     */
+    public void setMaxPagesPerFling(int maxPagesPerFling) {
+        this.maxPagesPerFling = Math.max(maxPagesPerFling, 1);
+    }
+
+    /**
+     * @see #setFlingVelocityThreshold(int)
+     * @return minimal velocity of a fling which moves to another page, in pixels per second
+     */
+    public int getFlingVelocityThreshold() {
+        return flingVelocityThreshold;
+    }
+
+    /**
+     * Set the minimal velocity of a fling which moves to another page in pagination mode.
+     * Slower flings settle back on the current page
+     * @param flingVelocityThreshold in pixels per second (0 by default, any fling moves to another page)
+     */
+    public void setFlingVelocityThreshold(int flingVelocityThreshold) {
+        this.flingVelocityThreshold = flingVelocityThreshold;
+    }
+
     /**
      * @see #setScaleFactor(float)
      * @return current scale factor
@@ -96,6 +177,129 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
         this.pageHeightFactor = pageHeightFactor;
     }
 
+    /**
+     * @see #setPageWidthFactor(float)
+     * @return current page width factor
+     */
+    public float getPageWidthFactor() {
+        return pageWidthFactor;
+    }
+
+    /**
+     * Set the page width in {@link Orientation#HORIZONTAL} mode as a percentage of the RecyclerView's width.
+     * A narrower page is centered and its neighbours peek from both sides
+     * @param pageWidthFactor in (0, 1]. 1 is for full RecyclerView's width (default)
+     */
+    public void setPageWidthFactor(float pageWidthFactor) {
+        if (pageWidthFactor != this.pageWidthFactor) {
+            this.pageWidthFactor = pageWidthFactor;
+            requestLayout();
+        }
+    }
+
+    /**
+     * @see #setPageMargin(int)
+     * @return gap between pages in pixels
+     */
+    public int getPageMargin() {
+        return pageMargin;
+    }
+
+    /**
+     * Set the gap between pages in {@link Orientation#HORIZONTAL} mode
+     * @param pageMargin in pixels (0 by default)
+     */
+    public void setPageMargin(int pageMargin) {
+        if (pageMargin != this.pageMargin) {
+            this.pageMargin = pageMargin;
+            requestLayout();
+        }
+    }
+
+    /**
+     * @see #setOffscreenPageLimit(int)
+     * @return number of pages kept on each side of the current page
+     */
+    public int getOffscreenPageLimit() {
+        return offScreenPages;
+    }
+
+    /**
+     * Set how many pages are laid out on each side of the current page in {@link Orientation#HORIZONTAL} mode.
+     * Pages beyond this limit are recycled
+     * @param limit number of off-screen pages on each side (2 by default)
+     */
+    public void setOffscreenPageLimit(int limit) {
+        limit = Math.max(limit, 0);
+        if (limit != offScreenPages) {
+            offScreenPages = limit;
+            requestLayout();
+        }
+    }
+
+    /**
+     * @see #setSpanCount(int)
+     * @return number of previews in a row
+     */
+    public int getSpanCount() {
+        return spanCount;
+    }
+
+    /**
+     * Set how many previews are laid out side by side in a row in {@link Orientation#VERTICAL} mode.
+     * An opened page takes the full width regardless of the column it is opened from
+     * @param spanCount at least 1 (1 by default)
+     */
+    public void setSpanCount(int spanCount) {
+        spanCount = Math.max(spanCount, 1);
+        if (spanCount != this.spanCount) {
+            this.spanCount = spanCount;
+            // the rows measured for the other number of columns hold other items
+            offsetIndex.reset((getItemCount() + spanCount - 1) / spanCount, (int) (getHeight() * pageHeightFactor));
+            requestLayout();
+        }
+    }
+
+    /**
+     * @return adapter position of the first item in the row of the given one
+     */
+    int getRowStart(int pos) {
+        return pos - pos % spanCount;
+    }
+
+    /**
+     * @see #setFlingLayersEnabled(boolean)
+     * @return true if scaled previews are drawn from hardware layers during a fling
+     */
+    public boolean isFlingLayersEnabled() {
+        return flingLayersEnabled;
+    }
+
+    /**
+     * Draw noticeably scaled previews from hardware layers while a fling settles in {@link Orientation#VERTICAL} mode,
+     * so that changing their scale does not redraw their content. The layers are released when the scroll stops
+     * @param enabled true to use hardware layers, false otherwise (default)
+     */
+    public void setFlingLayersEnabled(boolean enabled) {
+        this.flingLayersEnabled = enabled;
+        if (!enabled) {
+            releaseFlingLayers();
+        }
+    }
+
+    public LayoutMetricsListener getLayoutMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Set a listener to receive timings and view counters of the layout passes and transitions.
+     * Nothing is measured while there is no listener
+     * @param metricsListener the listener or null to stop measuring
+     */
+    public void setLayoutMetricsListener(@Nullable LayoutMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     public Orientation getOrientation() {
         return orientation;
     }
@@ -105,8 +309,14 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
      * @param orientation The {@link Orientation} to use
      */
     public void setOrientation(Orientation orientation) {
+        if (transitionDriver != null) {
+            transitionDriver.cancel();
+        }
         View anchorView = getAnchorView();
         anchorPos = anchorView != null ? getPosition(anchorView) : 0;
+        anchorOffset = 0;
+        anchorId = RecyclerView.NO_ID;
+        committedTransitionPos = RecyclerView.NO_POSITION;
         if (orientation != null) {
             this.orientation = orientation;
         }
@@ -118,19 +328,9 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
      * @param pos Adapter's position to open
      */
     public void openItem(int pos) {
-        if (orientation == Orientation.VERTICAL) {
-            View viewToOpen = null;
-            int childCount = getChildCount();
-            for (int i = 0; i < childCount; i++) {
-                View view = getChildAt(i);
-                int position = getPosition(view);
-                if (position == pos) {
-                    viewToOpen = view;
-                }
-            }
-            if (viewToOpen != null) {
-                openView(viewToOpen);
-            }
+        View viewToOpen = findViewToOpen(pos);
+        if (viewToOpen != null) {
+            openView(viewToOpen);
         }
     }
 
@@ -138,77 +338,216 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
      * Animated collapse current page and change the orientation to Orientation.VERTICAL
      */
     public void close() {
-        View targetView = getAnchorView();
-        final ArrayList<ViewAnimationInfo> animationInfos = new ArrayList<>();
+        if (prepareClose()) {
+            transitionDriver.animateTo(1, transitionDuration);
+        }
+    }
+
+    /**
+     * Start a transition to Orientation.HORIZONTAL which follows {@link #setTransitionProgress(float)}
+     * instead of running on its own, e.g. to expand the page along with a gesture.
+     * Finish it with {@link #settleTransition(float)}
+     * @param pos Adapter's position to open
+     * @return false if there is no such page in the RecyclerView or a page is already open
+     */
+    public boolean beginOpen(int pos) {
+        View viewToOpen = findViewToOpen(pos);
+        if (viewToOpen == null) {
+            return false;
+        }
+        prepareOpen(viewToOpen);
+        return true;
+    }
+
+    /**
+     * Start a transition to Orientation.VERTICAL which follows {@link #setTransitionProgress(float)}.
+     * Finish it with {@link #settleTransition(float)}
+     * @return false if no page is open or opening
+     */
+    public boolean beginClose() {
+        return prepareClose();
+    }
+
+    /**
+     * Move the transition started with {@link #beginOpen(int)} or {@link #beginClose()}.
+     * Has no effect while the transition settles
+     * @param progress in [0, 1]. 0 is for the initial layout, 1 is for the layout in the target orientation
+     */
+    public void setTransitionProgress(float progress) {
+        if (transitionDriver != null && transitionDriver.isTracking()) {
+            transitionDriver.setProgress(Math.min(Math.max(progress, 0), 1));
+        }
+    }
+
+    /**
+     * @return progress of the current transition, 0 if there is none
+     */
+    public float getTransitionProgress() {
+        return isTransitionRunning() ? transitionDriver.progress : 0;
+    }
+
+    /**
+     * Finish the transition started with {@link #beginOpen(int)} or {@link #beginClose()}.
+     * A fast enough gesture decides the direction, otherwise the transition completes if it has passed the half way.
+     * The rest is animated with the gesture's speed, but takes no longer than the same part of the transition duration
+     * @param velocity of the gesture in progress units per second, positive is towards the target orientation
+     */
+    public void settleTransition(float velocity) {
+        if (transitionDriver == null || !transitionDriver.isTracking()) {
+            return;
+        }
+        float progress = transitionDriver.progress;
+        float target;
+        if (Math.abs(velocity) >= SETTLE_VELOCITY) {
+            target = velocity > 0 ? 1 : 0;
+        } else {
+            target = progress >= 0.5f ? 1 : 0;
+        }
+        float distance = Math.abs(target - progress);
+        int duration = (int) (transitionDuration * distance);
+        if (velocity != 0 && (target > progress) == (velocity > 0)) {
+            duration = Math.min(duration, (int) (distance / Math.abs(velocity) * 1000));
+        }
+        transitionDriver.animateTo(target, duration);
+    }
+
+    /**
+     * @return the child at the given position if it can be opened
+     */
+    private View findViewToOpen(int pos) {
+        // the orientation changes when a transition finishes, so a running close can still be reversed
+        boolean closing = isTransitionRunning() && transitionDriver.targetOrientation == Orientation.VERTICAL;
+        if (orientation != Orientation.VERTICAL && !closing) {
+            return null;
+        }
+        return findViewByPosition(pos);
+    }
+
+    /**
+     * @return false if there is nothing to collapse
+     */
+    private boolean prepareClose() {
+        // a running open is reversed, otherwise only a page can be collapsed
+        boolean opening = isTransitionRunning() && transitionDriver.targetOrientation == Orientation.HORIZONTAL;
+        if (orientation != Orientation.HORIZONTAL && !opening) {
+            return false;
+        }
+        // early in an open a neighbour may still take more of the screen than the page being opened
+        View targetView = opening ? findViewByPosition(transitionDriver.targetPos) : getAnchorView();
+        if (targetView == null) {
+            return false;
+        }
+        boolean interrupted = isTransitionRunning();
+        TransitionDriver driver = getTransitionDriver();
         int childCount = getChildCount();
         int targetPos = getPosition(targetView);
-        for (int i = 0; i < childCount; i++) {
-            View view = getChildAt(i);
-            int pos = getPosition(view);
-            if (pos < targetPos) {
-                continue;
-            }
-            int posDelta = pos - targetPos;
-            final ViewAnimationInfo viewAnimationInfo = new ViewAnimationInfo();
-            int maxHeight = (int) (getHeight() * pageHeightFactor);
-            if (animationInfos.isEmpty()) {
-                viewAnimationInfo.startTop = getDecoratedTop(view);
-                viewAnimationInfo.startBottom = getDecoratedBottom(view);
-                viewAnimationInfo.finishTop = viewAnimationInfo.startTop;
-                viewAnimationInfo.finishBottom = viewAnimationInfo.finishTop + Math.min(maxHeight, getDecoratedMeasuredHeight(view));
-            } else {
-                ViewAnimationInfo prevViewInfo = animationInfos.get(animationInfos.size() - 1);
-                viewAnimationInfo.startTop = getHeight() * posDelta;
-                viewAnimationInfo.startBottom = viewAnimationInfo.startTop + getHeight();
-                viewAnimationInfo.finishTop = prevViewInfo.finishBottom;
-                viewAnimationInfo.finishBottom = viewAnimationInfo.finishTop + Math.min(maxHeight, getDecoratedMeasuredHeight(view));
-            }
-            viewAnimationInfo.view = view;
-            animationInfos.add(viewAnimationInfo);
-        }
-        ValueAnimator animator = ValueAnimator.ofFloat(0, 1);
-        animator.setDuration(transitionDuration);
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float animationProgress = (float) animation.getAnimatedValue();
-                for (ViewAnimationInfo animationInfo : animationInfos) {
-                    int top = (int) (animationInfo.startTop + animationProgress * (animationInfo.finishTop - animationInfo.startTop));
-                    int bottom = (int) (animationInfo.startBottom + animationProgress * (animationInfo.finishBottom - animationInfo.startBottom));
-                    layoutDecorated(animationInfo.view, 0, top, getWidth(), bottom);
-                    notifyChildState(animationInfo.view, 1 - animationProgress);
-                }
-                updateViewScale();
+        int targetRowStart = getRowStart(targetPos);
+        driver.begin(Orientation.VERTICAL, targetPos, childCount);
+        int targetTop = getDecoratedTop(targetView);
+        int targetIndex = 0;
+        while (getPosition(getChildAt(targetIndex)) < targetRowStart) {
+            targetIndex++;
+        }
+
+        // the rows before the target's one stack up above it
+        int rowBottom = targetTop;
+        int rowEnd = targetIndex;
+        while (rowEnd > 0) {
+            int rowStart = getRowStart(getPosition(getChildAt(rowEnd - 1)));
+            int rowHeight = 0;
+            int rowFirst = rowEnd;
+            while (rowFirst > 0 && getPosition(getChildAt(rowFirst - 1)) >= rowStart) {
+                rowFirst--;
+                rowHeight = Math.max(rowHeight, getClosedHeight(getChildAt(rowFirst)));
             }
-        });
-        animator.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
+            for (int i = rowFirst; i < rowEnd; i++) {
+                addClosingView(driver, getChildAt(i), targetPos, interrupted, rowBottom - rowHeight);
             }
+            rowBottom -= rowHeight;
+            rowEnd = rowFirst;
+        }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                setOrientation(Orientation.VERTICAL);
+        // the target's row and the following ones stack down from it
+        int rowTop = targetTop;
+        int rowHeight = 0;
+        int rowStart = targetRowStart;
+        for (int i = targetIndex; i < childCount; i++) {
+            View view = getChildAt(i);
+            int pos = getPosition(view);
+            if (getRowStart(pos) != rowStart) {
+                rowStart = getRowStart(pos);
+                rowTop += rowHeight;
+                rowHeight = 0;
             }
+            rowHeight = Math.max(rowHeight, getClosedHeight(view));
+            addClosingView(driver, view, targetPos, interrupted, rowTop);
+        }
+        return true;
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
-            }
+    /**
+     * @return height of the child in Orientation.VERTICAL mode
+     */
+    private int getClosedHeight(View view) {
+        return Math.min((int) (getHeight() * pageHeightFactor), getDecoratedMeasuredHeight(view));
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-            }
-        });
-        animator.start();
+    /**
+     * Animate the child from its page to its column of the row at the given top.
+     * The pages which do not peek in start where they would be above or below the target one
+     */
+    private void addClosingView(TransitionDriver driver, View view, int targetPos, boolean interrupted, int rowTop) {
+        int pos = getPosition(view);
+        int width = getWidth();
+        int startLeft;
+        int startTop;
+        int startRight;
+        int startBottom;
+        if (pos == targetPos || interrupted || getPageStride() < width) {
+            startLeft = getDecoratedLeft(view);
+            startTop = getDecoratedTop(view);
+            startRight = getDecoratedRight(view);
+            startBottom = getDecoratedBottom(view);
+        } else {
+            startLeft = 0;
+            startTop = getHeight() * (pos - targetPos);
+            startRight = width;
+            startBottom = startTop + getHeight();
+        }
+        int columnWidth = width / spanCount;
+        int finishLeft = pos % spanCount * columnWidth;
+        driver.add(view, startLeft, startTop, startRight, startBottom,
+                finishLeft, rowTop, finishLeft + columnWidth, rowTop + getClosedHeight(view));
+    }
 
+    /**
+     * @return true if an animated transition between orientations is in progress
+     */
+    public boolean isTransitionRunning() {
+        return transitionDriver != null && transitionDriver.isRunning();
     }
 
+    /**
+     * @return adapter position of the item the running transition opens or closes
+     * or {@link RecyclerView#NO_POSITION} if there is no transition
+     */
+    int getTransitionTargetPosition() {
+        return isTransitionRunning() ? transitionDriver.targetPos : RecyclerView.NO_POSITION;
+    }
+
+    private TransitionDriver getTransitionDriver() {
+        if (transitionDriver == null) {
+            transitionDriver = new TransitionDriver();
+        }
+        return transitionDriver;
+    }
 
     @Override
     public void onAttachedToWindow(final RecyclerView recyclerView) {
         super.onAttachedToWindow(recyclerView);
 
         this.recyclerView = recyclerView;
+        frameIntervalNanos = getFrameIntervalNanos(recyclerView);
 
         recyclerView.setChildDrawingOrderCallback(new RecyclerView.ChildDrawingOrderCallback() {
             @Override
@@ -217,34 +556,19 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
             }
         });
 
-        recyclerView.setOnFlingListener(new RecyclerView.OnFlingListener() {
-            @Override
-            public boolean onFling(int velocityX, int velocityY) {
-                if (!pagination) {
-                    return false;
-                }
-                int position = scrollStartPos;
-                int velocity = 0;
-                switch (orientation) {
-                    case VERTICAL:
-                        velocity = velocityY;
-                        break;
-                    case HORIZONTAL:
-                        velocity = velocityX;
-                        break;
-                }
-                position = velocity > 0 ? position + 1 : position - 1;
-                position = Math.max(position, 0);
-                position = Math.min(position, getItemCount() - 1);
-                recyclerView.smoothScrollToPosition(position);
-                return true;
-            }
-        });
+        recyclerView.setOnFlingListener(null);
+        snapHelper.attachToRecyclerView(recyclerView);
     }
 
     @Override
     public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
         super.onDetachedFromWindow(view, recycler);
+        snapHelper.attachToRecyclerView(null);
+        releaseFlingLayers();
+        if (transitionDriver != null) {
+            transitionDriver.cancel();
+        }
+        pagePrefetcher.stop();
         recyclerView = null;
     }
 
@@ -255,305 +579,768 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
 
     @Override
     public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        long startNanos = startPass();
+        if (isTransitionRunning() && !state.didStructureChange()) {
+            if (transitionPrefetchPos != RecyclerView.NO_POSITION) {
+                pagePrefetcher.start(recycler, transitionPrefetchPos);
+                transitionPrefetchPos = RecyclerView.NO_POSITION;
+            }
+            finishPass(LayoutMetricsListener.Pass.LAYOUT, startNanos, getChildCount());
+            return;
+        }
+        if (transitionDriver != null) {
+            transitionDriver.cancel();
+        }
+        transitionPrefetchPos = RecyclerView.NO_POSITION;
+
+        if (committedTransitionPos != RecyclerView.NO_POSITION) {
+            int targetPos = committedTransitionPos;
+            committedTransitionPos = RecyclerView.NO_POSITION;
+            // an anchor set during the transition, e.g. by scrollToPosition(), has been waiting for this pass
+            if (anchorPos < 0) {
+                if (!state.didStructureChange() && !state.isPreLayout() && findViewByPosition(targetPos) != null) {
+                    int childCount = getChildCount();
+                    relayoutAttachedViews(targetPos, recycler, state);
+                    ensurePoolCapacity();
+                    finishPass(LayoutMetricsListener.Pass.LAYOUT, startNanos, childCount - recycledCount);
+                    return;
+                }
+                anchorPos = targetPos;
+                anchorOffset = 0;
+                anchorId = RecyclerView.NO_ID;
+            }
+        }
+
+        int itemCount = state.getItemCount();
+        if (itemCount == 0) {
+            removeAndRecycleAllViews(recycler);
+            finishPass(LayoutMetricsListener.Pass.LAYOUT, startNanos, 0);
+            return;
+        }
+
+        int layoutAnchorPos = 0;
+        int layoutAnchorOffset = 0;
+        if (anchorPos >= 0) {
+            layoutAnchorPos = findPositionById(anchorId, anchorPos);
+            layoutAnchorOffset = anchorOffset;
+        } else {
+            View anchorView = getAnchorView();
+            if (anchorView != null) {
+                layoutAnchorOffset = getAnchorOffset(anchorView);
+                View survivingView = state.isPreLayout() ? anchorView : findSurvivingView(anchorView);
+                if (survivingView != anchorView && survivingView != null && getPosition(survivingView) < getPosition(anchorView)) {
+                    layoutAnchorOffset = getAnchorOffset(survivingView);
+                }
+                if (survivingView == anchorView && !state.isPreLayout()) {
+                    // after notifyDataSetChanged the position of the view is stale, its item may have moved
+                    layoutAnchorPos = findPositionById(getItemId(anchorView), getPosition(anchorView));
+                } else if (survivingView != null) {
+                    layoutAnchorPos = getPosition(survivingView);
+                }
+            }
+        }
+        layoutAnchorPos = Math.min(layoutAnchorPos, itemCount - 1);
+
+        extraLayoutSpace = state.isPreLayout() ? getRemovedSpace() : 0;
         detachAndScrapAttachedViews(recycler);
-        fill(recycler);
-        anchorPos = -1;
+        fill(recycler, state, layoutAnchorPos, layoutAnchorOffset);
+        extraLayoutSpace = 0;
+        if (!state.isPreLayout()) {
+            anchorPos = -1;
+            anchorOffset = 0;
+            anchorId = RecyclerView.NO_ID;
+            ensurePoolCapacity();
+        }
+        finishPass(LayoutMetricsListener.Pass.LAYOUT, startNanos, 0);
     }
 
-    @Override
-    public void onScrollStateChanged(int state) {
-        super.onScrollStateChanged(state);
-        if (!pagination) {
+    /**
+     * @return current position of the item with the given stable id, or the given position
+     * if the adapter has no stable ids or no such item
+     */
+    private int findPositionById(long id, int pos) {
+        if (id == RecyclerView.NO_ID || !hasStableIds()) {
+            return pos;
+        }
+        int idPos = stableIdIndex.find(recyclerView.getAdapter(), id, pos);
+        return idPos != RecyclerView.NO_POSITION ? idPos : pos;
+    }
+
+    private long getItemId(View view) {
+        return recyclerView != null ? recyclerView.getChildViewHolder(view).getItemId() : RecyclerView.NO_ID;
+    }
+
+    /**
+     * Grows the RecycledViewPool so that it can take all the children of a view type at once,
+     * as it happens when the orientation changes or the off-screen pages are scrolled away.
+     * The capacity only grows, so it covers the largest layout of each view type in both orientations.
+     * Use {@link AwesomeRecycledViewPool} to share the pool with other RecyclerViews
+     */
+    private void ensurePoolCapacity() {
+        if (recyclerView == null) {
             return;
         }
-        if (state == RecyclerView.SCROLL_STATE_DRAGGING) {
-            scrollStartPos = getPosition(getAnchorView());
+        RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        if (pool != sizedPool) {
+            sizedPool = pool;
+            poolSizes.clear();
         }
-        if (state == RecyclerView.SCROLL_STATE_IDLE) {
-            switch (orientation) {
-                case VERTICAL:
-                    checkLayoutVertical();
-                    break;
-                case HORIZONTAL:
-                    checkLayoutHorizontal();
-                    break;
+        childTypeCounts.clear();
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            int viewType = getItemViewType(getChildAt(i));
+            childTypeCounts.put(viewType, childTypeCounts.get(viewType) + 1);
+        }
+        for (int i = 0, size = childTypeCounts.size(); i < size; i++) {
+            int viewType = childTypeCounts.keyAt(i);
+            // a row more for the one which is recycled while the next one is bound
+            int capacity = childTypeCounts.valueAt(i) + spanCount;
+            if (capacity <= poolSizes.get(viewType, DEFAULT_POOL_SIZE)) {
+                continue;
+            }
+            poolSizes.put(viewType, capacity);
+            if (pool instanceof AwesomeRecycledViewPool) {
+                ((AwesomeRecycledViewPool) pool).ensureMaxRecycledViews(viewType, capacity);
+            } else {
+                pool.setMaxRecycledViews(viewType, capacity);
             }
         }
+    }
 
+    @Override
+    public Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState();
+        savedState.orientation = orientation;
+        if (isTransitionRunning()) {
+            savedState.orientation = transitionDriver.targetOrientation;
+            savedState.anchorPos = transitionDriver.targetPos;
+            View targetView = findViewByPosition(transitionDriver.targetPos);
+            if (targetView != null) {
+                savedState.anchorId = getItemId(targetView);
+            }
+        } else if (anchorPos >= 0) {
+            savedState.anchorPos = anchorPos;
+            savedState.anchorOffset = anchorOffset;
+            savedState.anchorId = anchorId;
+        } else {
+            View anchorView = getAnchorView();
+            if (anchorView != null) {
+                savedState.anchorPos = getPosition(anchorView);
+                savedState.anchorOffset = getAnchorOffset(anchorView);
+                savedState.anchorId = getItemId(anchorView);
+            }
+        }
+        return savedState;
     }
 
-    private void checkLayoutHorizontal() {
-        View anchorView = getAnchorView();
-        int left = getDecoratedLeft(anchorView);
-        if (left != 0) {
-            recyclerView.smoothScrollBy(left, 0);
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (state instanceof SavedState) {
+            SavedState savedState = (SavedState) state;
+            orientation = savedState.orientation;
+            anchorPos = savedState.anchorPos;
+            anchorOffset = savedState.anchorOffset;
+            anchorId = savedState.anchorId;
+            requestLayout();
         }
     }
 
-    private void checkLayoutVertical() {
-        View anchorView = getAnchorView();
-        int position = getPosition(anchorView);
-        if (position != 0 && position == getItemCount() - 1) {
-            int bottom = getDecoratedBottom(anchorView);
-            if (bottom != getHeight()) {
-                recyclerView.smoothScrollBy(0, bottom);
+    /**
+     * @return top of the view in {@link Orientation#VERTICAL} mode, or its left edge relative to
+     * the resting place of the current page in {@link Orientation#HORIZONTAL} mode
+     */
+    private int getAnchorOffset(View view) {
+        return orientation == Orientation.VERTICAL
+                ? getDecoratedTop(view)
+                : getDecoratedLeft(view) - getPageInset();
+    }
+
+    private int getPageWidth() {
+        return (int) (getWidth() * pageWidthFactor);
+    }
+
+    /**
+     * @return distance between the left edges of two neighbour pages
+     */
+    int getPageStride() {
+        return getPageWidth() + pageMargin;
+    }
+
+    /**
+     * @return left edge of the current page at rest. The space on both sides is taken by the peeking neighbours
+     */
+    int getPageInset() {
+        return (getWidth() - getPageWidth()) / 2;
+    }
+
+    /**
+     * @return scroll offset at which the page at the given position is at rest. Pages share their width,
+     * so this is a multiplication rather than a walk over the preceding pages
+     */
+    private int getPageOffset(int pos) {
+        return pos * getPageStride();
+    }
+
+    @Override
+    public boolean supportsPredictiveItemAnimations() {
+        return true;
+    }
+
+    /**
+     * @return the given child if its item is still in the adapter, otherwise the closest following child
+     * which is still there, or the closest preceding one if there is no such child
+     */
+    private View findSurvivingView(View view) {
+        if (!isItemRemoved(view)) {
+            return view;
+        }
+        int childCount = getChildCount();
+        int index = 0;
+        while (getChildAt(index) != view) {
+            index++;
+        }
+        for (int i = index + 1; i < childCount; i++) {
+            if (!isItemRemoved(getChildAt(i))) {
+                return getChildAt(i);
             }
-        } else {
-            int decoratedTop = getDecoratedTop(anchorView);
-            if (decoratedTop != 0) {
-                recyclerView.smoothScrollBy(0, decoratedTop);
+        }
+        for (int i = index - 1; i >= 0; i--) {
+            if (!isItemRemoved(getChildAt(i))) {
+                return getChildAt(i);
             }
         }
+        return null;
+    }
+
+    /**
+     * In the pre-layout pass the space of the removed items is filled with the items which are going to appear,
+     * so that they can be animated into their places
+     */
+    private int getRemovedSpace() {
+        if (orientation != Orientation.VERTICAL) {
+            return 0;
+        }
+        int removedSpace = 0;
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            View view = getChildAt(i);
+            if (isItemRemoved(view)) {
+                removedSpace += getDecoratedBottom(view) - getDecoratedTop(view);
+            }
+        }
+        return removedSpace;
+    }
+
+    private boolean isItemRemoved(View view) {
+        return ((RecyclerView.LayoutParams) view.getLayoutParams()).isItemRemoved();
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        super.onScrollStateChanged(state);
+        if (flingLayersEnabled && state == RecyclerView.SCROLL_STATE_SETTLING && orientation == Orientation.VERTICAL) {
+            flingLayersActive = true;
+            updateViewScale();
+        } else if (flingLayersActive) {
+            releaseFlingLayers();
+        }
     }
 
     protected void openView(final View targetView) {
-        final ArrayList<ViewAnimationInfo> animationInfos = new ArrayList<>();
+        prepareOpen(targetView);
+        transitionDriver.animateTo(1, transitionDuration);
+    }
+
+    private void prepareOpen(View targetView) {
+        TransitionDriver driver = getTransitionDriver();
         int childCount = getChildCount();
         int targetPos = getPosition(targetView);
+        driver.begin(Orientation.HORIZONTAL, targetPos, childCount);
+        // the layout pass hands the Recycler over to the page prefetcher
+        transitionPrefetchPos = targetPos;
+        requestLayout();
+        int targetHeight = getDecoratedMeasuredHeight(targetView);
+        int pageLeft = getPageInset();
+        int pageWidth = getPageWidth();
+        boolean peek = getPageStride() < getWidth();
         for (int i = 0; i < childCount; i++) {
             View view = getChildAt(i);
-            int pos = getPosition(view);
-            int posDelta = pos - targetPos;
-            final ViewAnimationInfo viewAnimationInfo = new ViewAnimationInfo();
-            viewAnimationInfo.startTop = getDecoratedTop(view);
-            viewAnimationInfo.startBottom = getDecoratedBottom(view);
-            viewAnimationInfo.finishTop = getHeight() * posDelta;
-            viewAnimationInfo.finishBottom = viewAnimationInfo.finishTop + getDecoratedMeasuredHeight(targetView);
-            viewAnimationInfo.view = view;
-            animationInfos.add(viewAnimationInfo);
-        }
-        ValueAnimator animator = ValueAnimator.ofFloat(0, 1);
-        animator.setDuration(transitionDuration);
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float animationProgress = (float) animation.getAnimatedValue();
-                for (ViewAnimationInfo animationInfo : animationInfos) {
-                    int top = (int) (animationInfo.startTop + animationProgress * (animationInfo.finishTop - animationInfo.startTop));
-                    int bottom = (int) (animationInfo.startBottom + animationProgress * (animationInfo.finishBottom - animationInfo.startBottom));
-                    layoutDecorated(animationInfo.view, 0, top, getWidth(), bottom);
-                    notifyChildState(animationInfo.view, animationProgress);
-                }
-                updateViewScale();
+            int posDelta = getPosition(view) - targetPos;
+            // peeking neighbours slide into their places beside the page, the others go off the screen
+            int finishLeft = peek ? pageLeft + getPageOffset(posDelta) : pageLeft;
+            int finishTop = peek ? 0 : getHeight() * posDelta;
+            driver.add(view, getDecoratedLeft(view), getDecoratedTop(view), getDecoratedRight(view), getDecoratedBottom(view),
+                    finishLeft, finishTop, finishLeft + pageWidth, finishTop + targetHeight);
+        }
+    }
+
+    @Override
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        int childCount = getChildCount();
+        int delta = orientation == Orientation.VERTICAL ? dy : dx;
+        if (childCount == 0 || delta == 0) {
+            return;
+        }
+        int rowSize = orientation == Orientation.VERTICAL ? spanCount : 1;
+        if (delta > 0) {
+            View lastView = getChildAt(childCount - 1);
+            int pos = getPosition(lastView) + 1;
+            int distance = orientation == Orientation.VERTICAL
+                    ? getRowBottom(childCount - 1) - getHeight()
+                    : getDecoratedRight(lastView) - getWidth();
+            for (int end = Math.min(pos + rowSize, state.getItemCount()); pos < end; pos++) {
+                layoutPrefetchRegistry.addPosition(pos, Math.max(distance, 0));
             }
-        });
-        animator.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
+        } else {
+            View firstView = getChildAt(0);
+            int pos = getPosition(firstView) - 1;
+            int distance = orientation == Orientation.VERTICAL
+                    ? -getDecoratedTop(firstView)
+                    : -getDecoratedLeft(firstView);
+            for (int end = Math.max(pos - rowSize, -1); pos > end; pos--) {
+                layoutPrefetchRegistry.addPosition(pos, Math.max(distance, 0));
             }
+        }
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                setOrientation(Orientation.HORIZONTAL);
+    @Override
+    public void collectInitialPrefetchPositions(int adapterItemCount, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        int firstPos = Math.max(anchorPos, 0);
+        int count = offScreenPages + 1;
+        if (orientation == Orientation.VERTICAL) {
+            firstPos = getRowStart(firstPos);
+            count = ((int) Math.ceil(1 / pageHeightFactor) + 1) * spanCount;
+        }
+        int lastPos = Math.min(firstPos + count, adapterItemCount);
+        for (int pos = firstPos; pos < lastPos; pos++) {
+            layoutPrefetchRegistry.addPosition(pos, 0);
+        }
+    }
+
+    private long startPass() {
+        boundCount = 0;
+        recycledCount = 0;
+        measuredCount = 0;
+        return metricsListener != null ? System.nanoTime() : 0;
+    }
+
+    private void finishPass(LayoutMetricsListener.Pass pass, long startNanos, int reusedCount) {
+        if (metricsListener != null) {
+            metricsListener.onLayoutPass(pass, System.nanoTime() - startNanos,
+                    boundCount, recycledCount, reusedCount, measuredCount);
+        }
+    }
+
+    private void onTransitionFrame(long startNanos, int viewCount) {
+        if (metricsListener == null) {
+            return;
+        }
+        finishPass(LayoutMetricsListener.Pass.TRANSITION_FRAME, startNanos, viewCount);
+        if (transitionFrames == 0) {
+            transitionStartNanos = startNanos;
+        } else {
+            long missedFrames = (startNanos - lastTransitionFrameNanos) / frameIntervalNanos - 1;
+            if (missedFrames > 0) {
+                droppedTransitionFrames += missedFrames;
             }
+        }
+        lastTransitionFrameNanos = startNanos;
+        transitionFrames++;
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
+    /**
+     * @return duration of a frame at the refresh rate of the display the view is on. Like RecyclerView's prefetching,
+     * falls back to 60 Hz if the display is not known or reports an implausibly low rate
+     */
+    private static long getFrameIntervalNanos(View view) {
+        float refreshRate = DEFAULT_REFRESH_RATE;
+        Display display = ViewCompat.getDisplay(view);
+        if (!view.isInEditMode() && display != null && display.getRefreshRate() >= MIN_REFRESH_RATE) {
+            refreshRate = display.getRefreshRate();
+        }
+        return (long) (1e9 / refreshRate);
+    }
+
+    private void onTransitionFinished() {
+        if (metricsListener != null && transitionFrames > 0) {
+            metricsListener.onTransitionFinished(lastTransitionFrameNanos - transitionStartNanos,
+                    transitionFrames, droppedTransitionFrames);
+        }
+        transitionFrames = 0;
+        droppedTransitionFrames = 0;
+    }
+
+    /**
+     * Lays out the children from scratch. All the children must be detached beforehand
+     * @param anchorPos adapter position of the view to start from
+     * @param anchorOffset top of the anchor view (or its left edge relative to the page's resting place
+     * in {@link Orientation#HORIZONTAL} mode)
+     */
+    private void fill(RecyclerView.Recycler recycler, RecyclerView.State state, int anchorPos, int anchorOffset) {
+        switch (orientation) {
+            case VERTICAL:
+                ensureOffsetIndex();
+                int rowStart = getRowStart(anchorPos);
+                fillUp(rowStart - 1, anchorOffset, true, recycler);
+                fillDown(rowStart, anchorOffset, true, recycler, state);
+                break;
+            case HORIZONTAL:
+                int left = getPageInset() + anchorOffset;
+                fillLeft(anchorPos - 1, left - pageMargin, recycler);
+                fillRight(anchorPos, left, true, recycler, state);
+                break;
+        }
+        updateViewScale();
+    }
+
+    /**
+     * Switches to the target orientation of a finished transition. The children are already where the transition
+     * has put them, so the next layout pass reuses them instead of laying out from scratch
+     */
+    private void commitTransition(Orientation orientation, int targetPos) {
+        this.orientation = orientation;
+        committedTransitionPos = targetPos;
+        requestLayout();
+    }
+
+    /**
+     * Lays out the attached children where the current orientation puts them around the given one,
+     * then recycles and adds the children at the edges like a scroll frame does.
+     * Only the children measured for a different width are measured again, and in Orientation.HORIZONTAL mode
+     * only the ones within the off-screen pages
+     */
+    private void relayoutAttachedViews(int anchorPos, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int childCount = getChildCount();
+        int height = getHeight();
+        final int heightSpec = View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.AT_MOST);
+        switch (orientation) {
+            case VERTICAL: {
+                ensureOffsetIndex();
+                int viewHeight = (int) (height * pageHeightFactor);
+                int columnWidth = getWidth() / spanCount;
+                final int widthSpec = View.MeasureSpec.makeMeasureSpec(columnWidth, View.MeasureSpec.EXACTLY);
+                int anchorRowStart = getRowStart(anchorPos);
+                int firstIndex = 0;
+                while (getPosition(getChildAt(firstIndex)) < anchorRowStart) {
+                    firstIndex++;
+                }
+                int anchorTop = getDecoratedTop(findViewByPosition(anchorPos));
+
+                int rowTop = anchorTop;
+                for (int index = firstIndex; index < childCount; ) {
+                    int rowStart = getRowStart(getPosition(getChildAt(index)));
+                    int rowHeight = 0;
+                    int end = index;
+                    while (end < childCount && getRowStart(getPosition(getChildAt(end))) == rowStart) {
+                        rowHeight = Math.max(rowHeight, measureIfNeeded(getChildAt(end), columnWidth, widthSpec, heightSpec, viewHeight));
+                        end++;
+                    }
+                    for (int i = index; i < end; i++) {
+                        View view = getChildAt(i);
+                        layoutRowChild(view, getPosition(view), rowTop, columnWidth, viewHeight);
+                    }
+                    offsetIndex.set(rowStart / spanCount, rowHeight);
+                    rowTop += rowHeight;
+                    index = end;
+                }
+
+                int rowBottom = anchorTop;
+                for (int index = firstIndex - 1; index >= 0; ) {
+                    int rowStart = getRowStart(getPosition(getChildAt(index)));
+                    int rowHeight = 0;
+                    int start = index;
+                    while (start >= 0 && getRowStart(getPosition(getChildAt(start))) == rowStart) {
+                        rowHeight = Math.max(rowHeight, measureIfNeeded(getChildAt(start), columnWidth, widthSpec, heightSpec, viewHeight));
+                        start--;
+                    }
+                    rowTop = rowBottom - rowHeight;
+                    for (int i = start + 1; i <= index; i++) {
+                        View view = getChildAt(i);
+                        layoutRowChild(view, getPosition(view), rowTop, columnWidth, viewHeight);
+                    }
+                    offsetIndex.set(rowStart / spanCount, rowHeight);
+                    rowBottom = rowTop;
+                    index = start;
+                }
+                break;
+            }
+            case HORIZONTAL: {
+                int pageWidth = getPageWidth();
+                final int widthSpec = View.MeasureSpec.makeMeasureSpec(pageWidth, View.MeasureSpec.EXACTLY);
+                int anchorLeft = getPageInset();
+                int stride = getPageStride();
+                int width = getWidth();
+                // most of the children of a grid are outside of the off-screen pages, they are recycled unmeasured
+                for (int i = childCount - 1; i >= 0; i--) {
+                    int left = anchorLeft + (getPosition(getChildAt(i)) - anchorPos) * stride;
+                    if (!canFillLeft(left + pageWidth) || !canFillRight(left, width)) {
+                        removeAndRecycleViewAt(i, recycler);
+                        recycledCount++;
+                    }
+                }
+                childCount = getChildCount();
+                for (int i = 0; i < childCount; i++) {
+                    View view = getChildAt(i);
+                    measureIfNeeded(view, pageWidth, widthSpec, heightSpec, height);
+                    int left = anchorLeft + (getPosition(view) - anchorPos) * stride;
+                    layoutDecorated(view, left, 0, left + getDecoratedMeasuredWidth(view), getDecoratedMeasuredHeight(view));
+                    notifyChildState(view, 1);
+                }
+                break;
+            }
+        }
+        fillEdges(recycler, state);
+    }
+
+    /**
+     * Measures the child unless it has been measured for the given width and has not requested a layout since
+     * @return decorated height of the child, capped with the given maximum
+     */
+    private int measureIfNeeded(View child, int width, int widthSpec, int heightSpec, int maxHeight) {
+        RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
+        if (child.isLayoutRequested() || getDecoratedMeasuredWidth(child) + lp.leftMargin + lp.rightMargin != width) {
+            measureChildWithDecorationsAndMargin(child, widthSpec, heightSpec);
+        }
+        return Math.min(maxHeight, getDecoratedMeasuredHeight(child));
+    }
+
+    /**
+     * Recycles the children which have left the viewport after a scroll and adds new ones at the edges only.
+     * The result is the same layout {@link #fill(RecyclerView.Recycler)} would produce from the current anchor view
+     */
+    private void fillEdges(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        View anchorView = getAnchorView();
+        if (anchorView == null) {
+            recycledCount += getChildCount();
+            removeAndRecycleAllViews(recycler);
+            fill(recycler, state, 0, 0);
+            return;
+        }
+        int anchorPos = getPosition(anchorView);
+        switch (orientation) {
+            case VERTICAL:
+                fillEdgesVertical(anchorPos, recycler, state);
+                break;
+            case HORIZONTAL:
+                fillEdgesHorizontal(anchorPos, recycler, state);
+                break;
+        }
+        updateViewScale();
+    }
+
+    /**
+     * Works with whole rows: a row is recycled or added with all of its children
+     */
+    private void fillEdgesVertical(int anchorPos, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        ensureOffsetIndex();
+        int height = getHeight();
+        int anchorRowStart = getRowStart(anchorPos);
+        int firstRowSize;
+        while ((firstRowSize = getRowSize(0)) < getChildCount()
+                && getPosition(getChildAt(0)) < anchorRowStart - spanCount
+                && getDecoratedTop(getChildAt(firstRowSize)) <= 0) {
+            for (int i = 0; i < firstRowSize; i++) {
+                removeAndRecycleViewAt(0, recycler);
+            }
+            recycledCount += firstRowSize;
+        }
+        int lastRowIndex;
+        while ((lastRowIndex = getLastRowIndex()) > 0
+                && getPosition(getChildAt(lastRowIndex)) > anchorRowStart
+                && getRowBottom(lastRowIndex - 1) > height) {
+            for (int i = getChildCount() - 1; i >= lastRowIndex; i--) {
+                removeAndRecycleViewAt(i, recycler);
+                recycledCount++;
             }
+        }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-            }
-        });
-        animator.start();
-    }
+        View firstView = getChildAt(0);
+        int firstPos = getPosition(firstView);
+        int firstTop = getDecoratedTop(firstView);
+        fillUp(firstPos - 1, firstTop, firstPos == anchorRowStart || firstTop > 0, recycler);
 
-    private float map(float x1, float x2, float y1, float y2, float n) {
-        return (n - x1) * (y2 - y1) / (x2 - x1) + y1;
+        int lastBottom = getRowBottom(getChildCount() - 1);
+        fillDown(getPosition(getChildAt(getChildCount() - 1)) + 1, lastBottom, lastBottom <= height, recycler, state);
     }
 
-    private void fill(RecyclerView.Recycler recycler) {
-        offScreenPages = (int) (getHeight() / pageHeightFactor);
-        View anchorView = getAnchorView();
-        viewCache.clear();
-        for (int i = 0, cnt = getChildCount(); i < cnt; i++) {
-            View view = getChildAt(i);
-            int pos = getPosition(view);
-            viewCache.put(pos, view);
+    /**
+     * @return number of children in the row which starts with the child at the given index
+     */
+    private int getRowSize(int index) {
+        int childCount = getChildCount();
+        int rowStart = getRowStart(getPosition(getChildAt(index)));
+        int size = 1;
+        while (index + size < childCount && getRowStart(getPosition(getChildAt(index + size))) == rowStart) {
+            size++;
         }
+        return size;
+    }
 
-        for (int i = 0; i < viewCache.size(); i++) {
-            detachView(viewCache.valueAt(i));
+    /**
+     * @return index of the first child in the last row
+     */
+    private int getLastRowIndex() {
+        int index = getChildCount() - 1;
+        int rowStart = getRowStart(getPosition(getChildAt(index)));
+        while (index > 0 && getPosition(getChildAt(index - 1)) >= rowStart) {
+            index--;
         }
+        return index;
+    }
 
-        switch (orientation) {
-
-            case VERTICAL:
-                fillUp(anchorView, recycler);
-                fillDown(anchorView, recycler);
-                break;
-            case HORIZONTAL:
-                fillLeft(anchorView, recycler);
-                fillRight(anchorView, recycler);
-                break;
+    /**
+     * @return the lowest bottom in the row which ends with the child at the given index
+     */
+    private int getRowBottom(int index) {
+        int rowStart = getRowStart(getPosition(getChildAt(index)));
+        int bottom = getDecoratedBottom(getChildAt(index));
+        for (int i = index - 1; i >= 0 && getPosition(getChildAt(i)) >= rowStart; i--) {
+            bottom = Math.max(bottom, getDecoratedBottom(getChildAt(i)));
         }
+        return bottom;
+    }
 
-        for (int i = 0; i < viewCache.size(); i++) {
-            recycler.recycleView(viewCache.valueAt(i));
+    private void fillEdgesHorizontal(int anchorPos, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int width = getWidth();
+        while (getChildCount() > 1
+                && getPosition(getChildAt(0)) < anchorPos
+                && !canFillLeft(getDecoratedLeft(getChildAt(1)) - pageMargin)) {
+            removeAndRecycleViewAt(0, recycler);
+            recycledCount++;
+        }
+        int lastIndex;
+        while ((lastIndex = getChildCount() - 1) > 0
+                && getPosition(getChildAt(lastIndex)) > anchorPos
+                && !canFillRight(getDecoratedRight(getChildAt(lastIndex - 1)) + pageMargin, width)) {
+            removeAndRecycleViewAt(lastIndex, recycler);
+            recycledCount++;
         }
 
-        updateViewScale();
-    }
-
-    private void fillUp(@Nullable View anchorView, RecyclerView.Recycler recycler) {
-        int anchorPos;
-        int anchorTop = 0;
+        View firstView = getChildAt(0);
+        fillLeft(getPosition(firstView) - 1, getDecoratedLeft(firstView) - pageMargin, recycler);
 
-        if (this.anchorPos >= 0) {
-            anchorPos = this.anchorPos;
-        } else if (anchorView == null) {
-            anchorPos = 0;
-        } else {
-            anchorPos = getPosition(anchorView);
-            anchorTop = getDecoratedTop(anchorView);
-        }
+        View lastView = getChildAt(getChildCount() - 1);
+        int nextLeft = getDecoratedRight(lastView) + pageMargin;
+        fillRight(getPosition(lastView) + 1, nextLeft, canFillRight(nextLeft, width), recycler, state);
+    }
 
-        boolean fillUp = true;
-        int pos = anchorPos - 1;
-        int viewBottom = anchorTop;
+    /**
+     * Adds whole rows above the given bottom. A row takes the height of its tallest (capped) preview
+     * @param pos adapter position of the last item in the row to start from
+     */
+    private void fillUp(int pos, int viewBottom, boolean fillUp, RecyclerView.Recycler recycler) {
         int viewHeight = (int) (getHeight() * pageHeightFactor);
-        final int widthSpec = View.MeasureSpec.makeMeasureSpec(getWidth(), View.MeasureSpec.EXACTLY);
+        int columnWidth = getWidth() / spanCount;
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(columnWidth, View.MeasureSpec.EXACTLY);
         final int heightSpec = View.MeasureSpec.makeMeasureSpec(getHeight(), View.MeasureSpec.AT_MOST);
         while (fillUp && pos >= 0) {
-            View view = viewCache.get(pos);
-            if (view == null) {
-                view = recycler.getViewForPosition(pos);
+            int rowStart = getRowStart(pos);
+            int rowHeight = 0;
+            for (int p = pos; p >= rowStart; p--) {
+                View view = recycler.getViewForPosition(p);
+                boundCount++;
                 addView(view, 0);
                 measureChildWithDecorationsAndMargin(view, widthSpec, heightSpec);
-                int decoratedMeasuredWidth = getDecoratedMeasuredWidth(view);
-                layoutDecorated(view, 0, viewBottom - Math.min(viewHeight, getDecoratedMeasuredHeight(view)), decoratedMeasuredWidth, viewBottom);
-            } else {
-                attachView(view, 0);
-                viewCache.remove(pos);
+                rowHeight = Math.max(rowHeight, Math.min(viewHeight, getDecoratedMeasuredHeight(view)));
             }
-            notifyChildState(view, 0);
-            viewBottom = getDecoratedTop(view);
+            int rowTop = viewBottom - rowHeight;
+            for (int i = 0, rowSize = pos - rowStart + 1; i < rowSize; i++) {
+                layoutRowChild(getChildAt(i), rowStart + i, rowTop, columnWidth, viewHeight);
+            }
+            offsetIndex.set(rowStart / spanCount, rowHeight);
+            viewBottom = rowTop;
             fillUp = (viewBottom > 0);
-            pos--;
+            pos = rowStart - 1;
         }
     }
 
-    private void fillDown(@Nullable View anchorView, RecyclerView.Recycler recycler) {
-        int anchorPos;
-        int anchorTop = 0;
-
-        if (this.anchorPos >= 0) {
-            anchorPos = this.anchorPos;
-        } else if (anchorView == null) {
-            anchorPos = 0;
-        } else {
-            anchorPos = getPosition(anchorView);
-            anchorTop = getDecoratedTop(anchorView);
-        }
-
-        int pos = anchorPos;
-        boolean fillDown = true;
-        int height = getHeight();
-        int viewTop = anchorTop;
-        int itemCount = getItemCount();
+    /**
+     * Adds whole rows below the given top. A row takes the height of its tallest (capped) preview
+     * @param pos adapter position of the first item in the row to start from
+     */
+    private void fillDown(int pos, int viewTop, boolean fillDown, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int height = getHeight() + extraLayoutSpace;
+        int itemCount = state.getItemCount();
         int viewHeight = (int) (getHeight() * pageHeightFactor);
-        final int widthSpec = View.MeasureSpec.makeMeasureSpec(getWidth(), View.MeasureSpec.EXACTLY);
+        int columnWidth = getWidth() / spanCount;
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(columnWidth, View.MeasureSpec.EXACTLY);
         final int heightSpec = View.MeasureSpec.makeMeasureSpec(getHeight(), View.MeasureSpec.AT_MOST);
 
         while (fillDown && pos < itemCount) {
-            View view = viewCache.get(pos);
-            if (view == null) {
-                view = recycler.getViewForPosition(pos);
+            int rowEnd = Math.min(pos + spanCount, itemCount);
+            int rowHeight = 0;
+            for (int p = pos; p < rowEnd; p++) {
+                View view = recycler.getViewForPosition(p);
+                boundCount++;
                 addView(view);
                 measureChildWithDecorationsAndMargin(view, widthSpec, heightSpec);
-                int decoratedMeasuredWidth = getDecoratedMeasuredWidth(view);
-                layoutDecorated(view, 0, viewTop, decoratedMeasuredWidth, viewTop + Math.min(viewHeight, getDecoratedMeasuredHeight(view)));
-            } else {
-                attachView(view);
-                viewCache.remove(pos);
+                rowHeight = Math.max(rowHeight, Math.min(viewHeight, getDecoratedMeasuredHeight(view)));
             }
-            notifyChildState(view, 0);
-            viewTop = getDecoratedBottom(view);
+            int firstIndex = getChildCount() - (rowEnd - pos);
+            for (int p = pos; p < rowEnd; p++) {
+                layoutRowChild(getChildAt(firstIndex + p - pos), p, viewTop, columnWidth, viewHeight);
+            }
+            offsetIndex.set(pos / spanCount, rowHeight);
+            viewTop += rowHeight;
             fillDown = viewTop <= height;
-            pos++;
+            pos = rowEnd;
         }
     }
 
-    private void fillLeft(@Nullable View anchorView, RecyclerView.Recycler recycler) {
-        int anchorPos;
-        int anchorLeft = 0;
-        if (this.anchorPos >= 0) {
-            anchorPos = this.anchorPos;
-        } else if (anchorView == null) {
-            anchorPos = 0;
-        } else {
-            anchorPos = getPosition(anchorView);
-            anchorLeft = getDecoratedLeft(anchorView);
-        }
+    /**
+     * Lays out an already measured preview in its column of the row
+     */
+    private void layoutRowChild(View view, int pos, int rowTop, int columnWidth, int viewHeight) {
+        int left = pos % spanCount * columnWidth;
+        layoutDecorated(view, left, rowTop, left + getDecoratedMeasuredWidth(view),
+                rowTop + Math.min(viewHeight, getDecoratedMeasuredHeight(view)));
+        notifyChildState(view, 0);
+    }
 
-        int pos = anchorPos - 1;
-        int nextViewRight = anchorLeft;
-        int width = getWidth();
-        boolean fillLeft = canFillLeft(nextViewRight, width);
+    private void fillLeft(int pos, int nextViewRight, RecyclerView.Recycler recycler) {
+        boolean fillLeft = canFillLeft(nextViewRight);
         int height = getHeight();
-        final int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(getPageWidth(), View.MeasureSpec.EXACTLY);
         final int heightSpec = View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.AT_MOST);
         while (fillLeft && pos >= 0) {
-            View view = viewCache.get(pos);
-            if (view == null) {
-                view = recycler.getViewForPosition(pos);
-                addView(view, 0);
-                measureChildWithDecorationsAndMargin(view, widthSpec, heightSpec);
-                int decoratedMeasuredHeight = getDecoratedMeasuredHeight(view);
-                int decoratedMeasuredWidth = getDecoratedMeasuredWidth(view);
-                layoutDecorated(view, nextViewRight - decoratedMeasuredWidth, 0, nextViewRight, decoratedMeasuredHeight);
-            } else {
-                attachView(view);
-                viewCache.remove(pos);
-            }
+            View view = recycler.getViewForPosition(pos);
+            boundCount++;
+            addView(view, 0);
+            measureChildWithDecorationsAndMargin(view, widthSpec, heightSpec);
+            int decoratedMeasuredHeight = getDecoratedMeasuredHeight(view);
+            int decoratedMeasuredWidth = getDecoratedMeasuredWidth(view);
+            layoutDecorated(view, nextViewRight - decoratedMeasuredWidth, 0, nextViewRight, decoratedMeasuredHeight);
             notifyChildState(view, 1);
-            nextViewRight = getDecoratedLeft(view);
-            fillLeft = canFillLeft(nextViewRight, width);
+            nextViewRight = getDecoratedLeft(view) - pageMargin;
+            fillLeft = canFillLeft(nextViewRight);
             pos--;
         }
     }
 
-    private boolean canFillLeft(int nextViewRight, int width) {
-        return nextViewRight > -width * offScreenPages;
+    private boolean canFillLeft(int nextViewRight) {
+        return nextViewRight > -getPageStride() * offScreenPages;
     }
 
-    private void fillRight(View anchorView, RecyclerView.Recycler recycler) {
-        int anchorPos;
-        int anchorLeft = 0;
-        if (this.anchorPos >= 0) {
-            anchorPos = this.anchorPos;
-        } else if (anchorView == null) {
-            anchorPos = 0;
-        } else {
-            anchorPos = getPosition(anchorView);
-            anchorLeft = getDecoratedLeft(anchorView);
-        }
+    private boolean canFillRight(int nextViewLeft, int width) {
+        return nextViewLeft < width + getPageStride() * offScreenPages;
+    }
 
-        int pos = anchorPos;
-        boolean fillRight = true;
-        int nextViewLeft = anchorLeft;
-        int itemCount = getItemCount();
+    private void fillRight(int pos, int nextViewLeft, boolean fillRight, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int itemCount = state.getItemCount();
         int width = getWidth();
         int height = getHeight();
-        final int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(getPageWidth(), View.MeasureSpec.EXACTLY);
         final int heightSpec = View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.AT_MOST);
 
         while (fillRight && pos < itemCount) {
-            View view = viewCache.get(pos);
-            if (view == null) {
-                view = recycler.getViewForPosition(pos);
-                addView(view);
-                measureChildWithDecorationsAndMargin(view, widthSpec, heightSpec);
-                int decoratedMeasuredHeight = getDecoratedMeasuredHeight(view);
-                int decoratedMeasuredWidth = getDecoratedMeasuredWidth(view);
-                layoutDecorated(view, nextViewLeft, 0, nextViewLeft + decoratedMeasuredWidth, decoratedMeasuredHeight);
-            } else {
-                attachView(view);
-                viewCache.remove(pos);
-            }
+            View view = recycler.getViewForPosition(pos);
+            boundCount++;
+            addView(view);
+            measureChildWithDecorationsAndMargin(view, widthSpec, heightSpec);
+            int decoratedMeasuredHeight = getDecoratedMeasuredHeight(view);
+            int decoratedMeasuredWidth = getDecoratedMeasuredWidth(view);
+            layoutDecorated(view, nextViewLeft, 0, nextViewLeft + decoratedMeasuredWidth, decoratedMeasuredHeight);
             notifyChildState(view, 1);
-            nextViewLeft = getDecoratedRight(view);
-            fillRight = nextViewLeft < width + width * offScreenPages;
+            nextViewLeft = getDecoratedRight(view) + pageMargin;
+            fillRight = canFillRight(nextViewLeft, width);
             pos++;
         }
     }
@@ -566,9 +1353,12 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
     }
 
     private void updateViewScale() {
+        long startNanos = metricsListener != null ? System.nanoTime() : 0;
         int childCount = getChildCount();
         int height = getHeight();
         int thresholdPerc = (int) (height * scaleThreshold);
+        int minPivotY = height / -2;
+        float pivotYPerPixel = -minPivotY / (float) (height - thresholdPerc);
         for (int i = 0; i < childCount; i++) {
             float scale = 1f;
             View view = getChildAt(i);
@@ -578,38 +1368,98 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
                 scale = (height - delta) / (float) height;
                 scale = Math.max(scale, 0);
             }
-            int pivotY = (int) map(thresholdPerc, height, getHeight() / -2, 0, viewTop);
-            view.setPivotX(view.getWidth() / 2);
-            view.setPivotY(pivotY);
-            view.setScaleX(scale);
-            view.setScaleY(scale);
+            float pivotX = view.getWidth() / 2;
+            float pivotY = (int) ((viewTop - thresholdPerc) * pivotYPerPixel + minPivotY);
+            if (view.getPivotX() != pivotX) {
+                view.setPivotX(pivotX);
+            }
+            if (view.getPivotY() != pivotY) {
+                view.setPivotY(pivotY);
+            }
+            if (view.getScaleX() != scale) {
+                view.setScaleX(scale);
+                view.setScaleY(scale);
+            }
+            if (flingLayersActive && scale < LAYER_SCALE_THRESHOLD && view.getLayerType() == View.LAYER_TYPE_NONE) {
+                view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                layerViews.add(view);
+            }
+        }
+        if (metricsListener != null) {
+            metricsListener.onLayoutPass(LayoutMetricsListener.Pass.SCALE, System.nanoTime() - startNanos, 0, 0, childCount, 0);
+        }
+    }
+
+    private void releaseFlingLayers() {
+        flingLayersActive = false;
+        for (int i = 0, size = layerViews.size(); i < size; i++) {
+            layerViews.get(i).setLayerType(View.LAYER_TYPE_NONE, null);
         }
+        layerViews.clear();
+    }
+
+    /**
+     * @return adapter position of the item which takes the most of the RecyclerView
+     * or {@link RecyclerView#NO_POSITION} if there are no children
+     */
+    public int getAnchorPosition() {
+        View anchorView = getAnchorView();
+        return anchorView != null ? getPosition(anchorView) : RecyclerView.NO_POSITION;
     }
 
+    /**
+     * @return the child with the largest visible area. Children are ordered along the layout axis,
+     * so the visible ones are found by walking from the previous anchor instead of scanning every child
+     */
     protected View getAnchorView() {
         int childCount = getChildCount();
-        Rect mainRect = new Rect(0, 0, getWidth(), getHeight());
+        if (childCount == 0) {
+            return null;
+        }
+        int width = getWidth();
+        int height = getHeight();
+        int hint = Math.min(Math.max(anchorIndexHint, 0), childCount - 1);
+        int first;
+        int last;
+        if (getVisibleSquare(getChildAt(hint), width, height) > 0) {
+            first = hint;
+            while (first > 0 && getVisibleSquare(getChildAt(first - 1), width, height) > 0) {
+                first--;
+            }
+            last = hint;
+            while (last < childCount - 1 && getVisibleSquare(getChildAt(last + 1), width, height) > 0) {
+                last++;
+            }
+        } else {
+            first = 0;
+            last = childCount - 1;
+        }
+
         int maxSquare = 0;
         View anchorView = null;
-        for (int i = 0; i < childCount; i++) {
+        for (int i = first; i <= last; i++) {
             View view = getChildAt(i);
-            int top = getDecoratedTop(view);
-            int bottom = getDecoratedBottom(view);
-            int left = getDecoratedLeft(view);
-            int right = getDecoratedRight(view);
-            Rect viewRect = new Rect(left, top, right, bottom);
-            boolean intersect = viewRect.intersect(mainRect);
-            if (intersect) {
-                int square = viewRect.width() * viewRect.height();
-                if (square > maxSquare) {
-                    maxSquare = square;
-                    anchorView = view;
-                }
+            int square = getVisibleSquare(view, width, height);
+            if (square > maxSquare) {
+                maxSquare = square;
+                anchorView = view;
+                anchorIndexHint = i;
             }
         }
         return anchorView;
     }
 
+    private int getVisibleSquare(View view, int width, int height) {
+        int left = Math.max(getDecoratedLeft(view), 0);
+        int top = Math.max(getDecoratedTop(view), 0);
+        int right = Math.min(getDecoratedRight(view), width);
+        int bottom = Math.min(getDecoratedBottom(view), height);
+        if (left >= right || top >= bottom) {
+            return 0;
+        }
+        return (right - left) * (bottom - top);
+    }
+
     @Override
     public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
         if (position >= getItemCount()) {
@@ -622,6 +1472,28 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
                 return AwesomeLayoutManager.this.computeScrollVectorForPosition(targetPosition);
             }
 
+            @Override
+            protected void updateActionForInterimTarget(Action action) {
+                View anchorView = getAnchorView();
+                if (anchorView != null) {
+                    int targetPos = getTargetPosition();
+                    int anchorPos = AwesomeLayoutManager.this.getPosition(anchorView);
+                    int items = orientation == Orientation.VERTICAL ? SMOOTH_SCROLL_ITEMS * spanCount : SMOOTH_SCROLL_ITEMS;
+                    if (Math.abs(targetPos - anchorPos) > items) {
+                        action.jumpTo(targetPos > anchorPos ? targetPos - items : targetPos + items);
+                        return;
+                    }
+                }
+                super.updateActionForInterimTarget(action);
+            }
+
+            @Override
+            public int calculateDxToMakeVisible(View view, int snapPreference) {
+                int dx = super.calculateDxToMakeVisible(view, snapPreference);
+                // pages rest at the inset, while the rows of Orientation.VERTICAL mode span the whole width
+                return orientation == Orientation.HORIZONTAL ? dx + getPageInset() : dx;
+            }
+
             @Override
             protected int getHorizontalSnapPreference() {
                 return SNAP_TO_START;
@@ -636,7 +1508,8 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
         startSmoothScroll(scroller);
     }
 
-    private PointF computeScrollVectorForPosition(int targetPosition) {
+    @Override
+    public PointF computeScrollVectorForPosition(int targetPosition) {
         if (getChildCount() == 0) {
             return null;
         }
@@ -662,37 +1535,148 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
     @Override
     public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
         int delta = scrollHorizontallyInternal(dx);
-        offsetChildrenHorizontal(-delta);
-        fill(recycler);
+        if (delta == 0) {
+            return 0;
+        }
+        long startNanos = startPass();
+        int childCount = getChildCount();
+        // the outermost children may end a page margin short of the off-screen window,
+        // so a delta this large can leave none of them on the screen
+        if (Math.abs(delta) >= getWidth() + getPageStride() * offScreenPages - pageMargin) {
+            delta = jumpHorizontallyBy(delta, recycler, state);
+        } else {
+            offsetChildrenHorizontal(-delta);
+            fillEdges(recycler, state);
+        }
+        finishPass(LayoutMetricsListener.Pass.SCROLL, startNanos, childCount - recycledCount);
         return delta;
     }
 
     @Override
     public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
         int delta = scrollVerticallyInternal(dy);
-        offsetChildrenVertical(-delta);
-        fill(recycler);
+        if (delta == 0) {
+            return 0;
+        }
+        long startNanos = startPass();
+        int childCount = getChildCount();
+        if (Math.abs(delta) > getHeight()) {
+            delta = jumpVerticallyBy(delta, recycler, state);
+        } else {
+            offsetChildrenVertical(-delta);
+            fillEdges(recycler, state);
+        }
+        finishPass(LayoutMetricsListener.Pass.SCROLL, startNanos, childCount - recycledCount);
         return delta;
     }
 
+    /**
+     * Lays out from the item found in the offset index instead of walking through every item on the way
+     * @return the distance actually scrolled
+     */
+    private int jumpVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int offset = getVerticalScrollOffset();
+        int maxOffset = Math.max(offsetIndex.getTotal() - getHeight(), 0);
+        int targetOffset = Math.min(Math.max(offset + dy, 0), maxOffset);
+        int targetRow = offsetIndex.findIndex(targetOffset);
+        recycledCount += getChildCount();
+        removeAndRecycleAllViews(recycler);
+        fill(recycler, state, targetRow * spanCount, offsetIndex.getOffset(targetRow) - targetOffset);
+        return targetOffset - offset;
+    }
+
+    /**
+     * Lays out from the page containing the target offset instead of walking through every page on the way
+     * @return the distance actually scrolled
+     */
+    private int jumpHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int offset = getHorizontalScrollOffset();
+        int maxOffset = Math.max(getPageOffset(getItemCount() - 1), 0);
+        int targetOffset = Math.min(Math.max(offset + dx, 0), maxOffset);
+        int targetPos = targetOffset / getPageStride();
+        recycledCount += getChildCount();
+        removeAndRecycleAllViews(recycler);
+        fill(recycler, state, targetPos, getPageOffset(targetPos) - targetOffset);
+        return targetOffset - offset;
+    }
+
+    /**
+     * The vertical offset index is kept per row
+     */
+    private void ensureOffsetIndex() {
+        int rowCount = (getItemCount() + spanCount - 1) / spanCount;
+        offsetIndex.ensure(rowCount, (int) (getHeight() * pageHeightFactor));
+    }
+
+    @Override
+    public int computeVerticalScrollOffset(RecyclerView.State state) {
+        return getChildCount() == 0 ? 0 : getVerticalScrollOffset();
+    }
+
+    private int getVerticalScrollOffset() {
+        ensureOffsetIndex();
+        View firstView = getChildAt(0);
+        return offsetIndex.getOffset(getPosition(firstView) / spanCount) - getDecoratedTop(firstView);
+    }
+
+    @Override
+    public int computeVerticalScrollRange(RecyclerView.State state) {
+        if (getChildCount() == 0) {
+            return 0;
+        }
+        ensureOffsetIndex();
+        return offsetIndex.getTotal();
+    }
+
+    @Override
+    public int computeVerticalScrollExtent(RecyclerView.State state) {
+        return getChildCount() == 0 ? 0 : getHeight();
+    }
+
+    @Override
+    public int computeHorizontalScrollOffset(RecyclerView.State state) {
+        return getChildCount() == 0 ? 0 : getHorizontalScrollOffset();
+    }
+
+    private int getHorizontalScrollOffset() {
+        View firstView = getChildAt(0);
+        return getPageOffset(getPosition(firstView)) - getAnchorOffset(firstView);
+    }
+
+    @Override
+    public int computeHorizontalScrollRange(RecyclerView.State state) {
+        return getChildCount() == 0 ? 0 : getPageOffset(getItemCount() - 1) + getWidth();
+    }
+
+    @Override
+    public int computeHorizontalScrollExtent(RecyclerView.State state) {
+        return getChildCount() == 0 ? 0 : getWidth();
+    }
+
     @Override
     public void scrollToPosition(int position) {
         super.scrollToPosition(position);
         anchorPos = position;
+        anchorOffset = 0;
+        anchorId = RecyclerView.NO_ID;
+        committedTransitionPos = RecyclerView.NO_POSITION;
         requestLayout();
     }
 
+    /**
+     * @return the part of dy which can be consumed. The rest is left to the nested scrolling parent
+     */
     private int scrollVerticallyInternal(int dy) {
         int childCount = getChildCount();
         int itemCount = getItemCount();
-        if (childCount == 0) {
+        if (childCount == 0 || isTransitionRunning()) {
             return 0;
         }
 
         final View topView = getChildAt(0);
-        final View bottomView = getChildAt(childCount - 1);
+        final int bottom = getRowBottom(childCount - 1);
 
-        int viewSpan = getDecoratedBottom(bottomView) - getDecoratedTop(topView);
+        int viewSpan = bottom - getDecoratedTop(topView);
         if (viewSpan <= getHeight()) {
             return 0;
         }
@@ -705,7 +1689,7 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
                 delta = dy;
             } else {
                 int viewTop = getDecoratedTop(firstView);
-                delta = Math.max(viewTop, dy);
+                delta = Math.max(Math.min(viewTop, 0), dy);
             }
         } else if (dy > 0) {
             View lastView = getChildAt(childCount - 1);
@@ -713,18 +1697,20 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
             if (lastViewAdapterPos < itemCount - 1) {
                 delta = dy;
             } else {
-                int viewBottom = getDecoratedBottom(lastView);
                 int parentBottom = getHeight();
-                delta = Math.min(viewBottom - parentBottom, dy);
+                delta = Math.min(Math.max(bottom - parentBottom, 0), dy);
             }
         }
         return delta;
     }
 
+    /**
+     * @return the part of dx which can be consumed. The rest is left to the nested scrolling parent
+     */
     private int scrollHorizontallyInternal(int dx) {
         int childCount = getChildCount();
         int itemCount = getItemCount();
-        if (childCount == 0) {
+        if (childCount == 0 || isTransitionRunning()) {
             return 0;
         }
         int delta = 0;
@@ -734,8 +1720,8 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
             if (firstViewAdapterPos > 0) {
                 delta = dx;
             } else {
-                int viewLeft = getDecoratedLeft(firstView);
-                delta = Math.max(viewLeft, dx);
+                int viewLeft = getDecoratedLeft(firstView) - getPageInset();
+                delta = Math.max(Math.min(viewLeft, 0), dx);
             }
         } else if (dx > 0) {
             View lastView = getChildAt(childCount - 1);
@@ -744,14 +1730,13 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
                 delta = dx;
             } else {
                 int viewRight = getDecoratedRight(lastView);
-                delta = Math.min(viewRight - getWidth(), dx);
+                delta = Math.min(Math.max(viewRight - getPageInset() - getPageWidth(), 0), dx);
             }
         }
         return delta;
     }
 
     private void measureChildWithDecorationsAndMargin(View child, int widthSpec, int heightSpec) {
-        Rect decorRect = new Rect();
         calculateItemDecorationsForChild(child, decorRect);
         RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
         widthSpec = updateSpecWithExtra(widthSpec, lp.leftMargin + decorRect.left,
@@ -759,6 +1744,37 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
         heightSpec = updateSpecWithExtra(heightSpec, lp.topMargin + decorRect.top,
                 lp.bottomMargin + decorRect.bottom);
         child.measure(widthSpec, heightSpec);
+        measuredCount++;
+    }
+
+    private boolean hasStableIds() {
+        RecyclerView.Adapter adapter = recyclerView != null ? recyclerView.getAdapter() : null;
+        return adapter != null && adapter.hasStableIds();
+    }
+
+    @Override
+    public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
+        stableIdIndex.invalidate();
+    }
+
+    @Override
+    public void onItemsChanged(RecyclerView recyclerView) {
+        stableIdIndex.invalidate();
+    }
+
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        stableIdIndex.invalidate();
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        stableIdIndex.invalidate();
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        stableIdIndex.invalidate();
     }
 
     private int updateSpecWithExtra(int spec, int startInset, int endInset) {
@@ -774,11 +1790,284 @@ public class AwesomeLayoutManager extends RecyclerView.LayoutManager {
     }
 
 
-    private static class ViewAnimationInfo {
-        int startTop;
-        int startBottom;
-        int finishTop;
-        int finishBottom;
-        View view;
+    /**
+     * Position of the anchor item, its offset and the orientation ({@link Orientation#HORIZONTAL} means a page is open).
+     * Restored within the first layout pass. The stable id of the anchor item, if the adapter has them,
+     * finds the item even if its position has changed meanwhile
+     */
+    public static class SavedState implements Parcelable {
+
+        int anchorPos;
+        int anchorOffset;
+        long anchorId = RecyclerView.NO_ID;
+        Orientation orientation = Orientation.VERTICAL;
+
+        SavedState() {
+        }
+
+        SavedState(Parcel in) {
+            anchorPos = in.readInt();
+            anchorOffset = in.readInt();
+            orientation = Orientation.values()[in.readInt()];
+            anchorId = in.readLong();
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(anchorPos);
+            dest.writeInt(anchorOffset);
+            dest.writeInt(orientation.ordinal());
+            dest.writeLong(anchorId);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * Binds the pages around the opening one which are not attached yet, so that the layout at the end
+     * of the transition takes them from the Recycler's view cache instead of binding them.
+     * A page is bound whenever the main thread waits for the next frame, so the binding stays out of the frames.
+     * No more pages are bound than the view cache keeps, the pool would take the rest without their data
+     */
+    private class PagePrefetcher implements MessageQueue.IdleHandler {
+
+        private RecyclerView.Recycler recycler;
+        private int targetPos;
+        private int nextPage;
+        private int boundPages;
+
+        /**
+         * Called from the layout pass requested by {@link #prepareOpen(View)}, which hands over the Recycler
+         */
+        void start(RecyclerView.Recycler recycler, int targetPos) {
+            stop();
+            this.recycler = recycler;
+            this.targetPos = targetPos;
+            nextPage = 0;
+            boundPages = 0;
+            Looper.myQueue().addIdleHandler(this);
+        }
+
+        void stop() {
+            if (recycler != null) {
+                recycler = null;
+                Looper.myQueue().removeIdleHandler(this);
+            }
+        }
+
+        @Override
+        public boolean queueIdle() {
+            if (recycler == null || recyclerView == null || !isTransitionRunning() || recyclerView.hasPendingAdapterUpdates()) {
+                recycler = null;
+                return false;
+            }
+            // the nearest pages first, alternating sides
+            while (nextPage < 2 * offScreenPages && boundPages < VIEW_CACHE_SIZE) {
+                int distance = nextPage / 2 + 1;
+                int pos = nextPage % 2 == 0 ? targetPos + distance : targetPos - distance;
+                nextPage++;
+                if (pos >= 0 && pos < getItemCount() && findViewByPosition(pos) == null) {
+                    recycler.recycleView(recycler.getViewForPosition(pos));
+                    boundPages++;
+                    return true;
+                }
+            }
+            recycler = null;
+            return false;
+        }
+    }
+
+    /**
+     * Moves the children between their current bounds and the bounds they take in the target orientation,
+     * either following the progress set from outside or animating it.
+     * The layout manager owns a single driver, so starting a transition cancels the one in progress
+     * and the new one continues from wherever the children are
+     */
+    private class TransitionDriver implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
+
+        private final ValueAnimator animator = ValueAnimator.ofFloat(0, 1);
+        private View[] views = new View[0];
+        private int[] startLefts = new int[0];
+        private int[] startRights = new int[0];
+        private int[] finishLefts = new int[0];
+        private int[] finishRights = new int[0];
+        private int[] startTops = new int[0];
+        private int[] startBottoms = new int[0];
+        private int[] finishTops = new int[0];
+        private int[] finishBottoms = new int[0];
+        private float[] notifiedProgress = new float[0];
+        private int count;
+        private Orientation targetOrientation;
+        private int targetPos;
+        private float progress;
+        private boolean tracking;
+        private boolean canceled;
+
+        TransitionDriver() {
+            animator.addUpdateListener(this);
+            animator.addListener(this);
+        }
+
+        void begin(Orientation targetOrientation, int targetPos, int capacity) {
+            cancel();
+            if (views.length < capacity) {
+                views = new View[capacity];
+                startLefts = new int[capacity];
+                startRights = new int[capacity];
+                finishLefts = new int[capacity];
+                finishRights = new int[capacity];
+                startTops = new int[capacity];
+                startBottoms = new int[capacity];
+                finishTops = new int[capacity];
+                finishBottoms = new int[capacity];
+                notifiedProgress = new float[capacity];
+            }
+            count = 0;
+            this.targetOrientation = targetOrientation;
+            this.targetPos = targetPos;
+            progress = 0;
+            tracking = true;
+        }
+
+        /**
+         * Views which stay on the same side outside of the RecyclerView during the whole transition are left as is
+         */
+        void add(View view, int startLeft, int startTop, int startRight, int startBottom,
+                 int finishLeft, int finishTop, int finishRight, int finishBottom) {
+            int height = getHeight();
+            boolean above = startBottom <= 0 && finishBottom <= 0;
+            boolean below = startTop >= height && finishTop >= height;
+            if (above || below) {
+                return;
+            }
+            views[count] = view;
+            startLefts[count] = startLeft;
+            startRights[count] = startRight;
+            finishLefts[count] = finishLeft;
+            finishRights[count] = finishRight;
+            startTops[count] = startTop;
+            startBottoms[count] = startBottom;
+            finishTops[count] = finishTop;
+            finishBottoms[count] = finishBottom;
+            notifiedProgress[count] = targetOrientation == Orientation.HORIZONTAL ? 0 : 1;
+            count++;
+        }
+
+        /**
+         * Animate the progress from its current value. The orientation is changed at the end if the target is 1,
+         * the initial layout is restored if it is 0
+         */
+        void animateTo(float target, int duration) {
+            canceled = false;
+            animator.setFloatValues(progress, target);
+            animator.setDuration(duration);
+            animator.start();
+        }
+
+        void setProgress(float progress) {
+            this.progress = progress;
+            apply();
+        }
+
+        /**
+         * @return true if the transition has begun and is not animated yet
+         */
+        boolean isTracking() {
+            return tracking && !animator.isStarted();
+        }
+
+        boolean isRunning() {
+            return tracking || animator.isStarted();
+        }
+
+        void cancel() {
+            if (animator.isStarted()) {
+                animator.cancel();
+            } else if (tracking) {
+                finish();
+            }
+        }
+
+        /**
+         * Lays out the children which have moved since the previous frame
+         * and notifies the ones whose state has changed
+         */
+        private void apply() {
+            long startNanos = startPass();
+            float stateProgress = targetOrientation == Orientation.HORIZONTAL ? progress : 1 - progress;
+            int laidOut = 0;
+            for (int i = 0; i < count; i++) {
+                View view = views[i];
+                int left = (int) (startLefts[i] + progress * (finishLefts[i] - startLefts[i]));
+                int top = (int) (startTops[i] + progress * (finishTops[i] - startTops[i]));
+                int right = (int) (startRights[i] + progress * (finishRights[i] - startRights[i]));
+                int bottom = (int) (startBottoms[i] + progress * (finishBottoms[i] - startBottoms[i]));
+                if (left != getDecoratedLeft(view) || top != getDecoratedTop(view)
+                        || right != getDecoratedRight(view) || bottom != getDecoratedBottom(view)) {
+                    layoutDecorated(view, left, top, right, bottom);
+                    laidOut++;
+                }
+                if (notifiedProgress[i] != stateProgress) {
+                    notifiedProgress[i] = stateProgress;
+                    notifyChildState(view, stateProgress);
+                }
+            }
+            updateViewScale();
+            onTransitionFrame(startNanos, laidOut);
+        }
+
+        private void finish() {
+            tracking = false;
+            Arrays.fill(views, 0, count, null);
+            count = 0;
+            onTransitionFinished();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            progress = (float) animation.getAnimatedValue();
+            apply();
+        }
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            finish();
+            if (canceled) {
+                return;
+            }
+            if (progress == 1) {
+                commitTransition(targetOrientation, targetPos);
+            } else {
+                requestLayout();
+            }
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            canceled = true;
+        }
+
+        @Override
+        public void onAnimationRepeat(Animator animation) {
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * A RecycledViewPool which can be shared by several RecyclerViews with AwesomeLayoutManager.
+ * Each layout manager asks for the capacity it needs and the pool keeps the largest one per view type,
+ * so one layout manager never shrinks the pool for another. Counts hits and misses of the pool
+ */
+public class AwesomeRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    private static final int DEFAULT_MAX_SCRAP = 5;
+
+    private final SparseIntArray maxScrap = new SparseIntArray();
+    private int hitCount;
+    private int missCount;
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        maxScrap.put(viewType, max);
+        super.setMaxRecycledViews(viewType, max);
+    }
+
+    /**
+     * Grow the capacity for the view type to the given value. A larger capacity is kept as is
+     */
+    public void ensureMaxRecycledViews(int viewType, int max) {
+        if (max > getMaxRecycledViews(viewType)) {
+            setMaxRecycledViews(viewType, max);
+        }
+    }
+
+    public int getMaxRecycledViews(int viewType) {
+        return maxScrap.get(viewType, DEFAULT_MAX_SCRAP);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        if (holder != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return holder;
+    }
+
+    /**
+     * @return number of view holders taken from the pool
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of times the pool had no view holder of the requested type, so a new one had to be created
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    public void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.forcelain.awesomelayoutmanager;
+
+/**
+ * Implement this interface to receive timings and view counters of AwesomeLayoutManager's layout passes
+ */
+public interface LayoutMetricsListener {
+
+    enum Pass {
+        /**
+         * Full layout in onLayoutChildren
+         */
+        LAYOUT,
+        /**
+         * Incremental layout of a scroll frame
+         */
+        SCROLL,
+        /**
+         * Scaling of the previews. Also included into the duration of the enclosing pass
+         */
+        SCALE,
+        /**
+         * One frame of the transition between orientations
+         */
+        TRANSITION_FRAME
+    }
+
+    /**
+     * Called by AwesomeLayoutManager when a pass has finished
+     * @param pass the kind of the pass
+     * @param durationNanos time spent in the pass in nanoseconds
+     * @param viewsBound views obtained from the Recycler
+     * @param viewsRecycled views given back to the Recycler
+     * @param viewsReused children which stayed attached and were reused as is
+     * @param viewsMeasured views which were actually measured
+     */
+    void onLayoutPass(Pass pass, long durationNanos, int viewsBound, int viewsRecycled, int viewsReused, int viewsMeasured);
+
+    /**
+     * Called by AwesomeLayoutManager when a transition between orientations has finished
+     * @param durationNanos time between the first and the last frame in nanoseconds
+     * @param frames number of frames the transition has been drawn in
+     * @param droppedFrames number of frames missed between them at the refresh rate of the RecyclerView's display
+     */
+    void onTransitionFinished(long durationNanos, int frames, int droppedFrames);
+}
@@ -0,0 +1,105 @@
+package com.forcelain.awesomelayoutmanager;
+
+import java.util.Arrays;
+
+/**
+ * Prefix sums of item sizes (a Fenwick tree). Items which have not been laid out yet take the default size.
+ * Both updates and offset lookups are O(log n)
+ */
+class OffsetIndex {
+
+    private int[] sizes = new int[0];
+    private int[] tree = new int[1];
+    private int count;
+    private int defaultSize;
+
+    /**
+     * Rebuild the index if the default size has changed. A change of the number of items only resizes it,
+     * so the sizes already known stay and the total does not jump
+     */
+    void ensure(int count, int defaultSize) {
+        if (this.defaultSize != defaultSize) {
+            reset(count, defaultSize);
+        } else if (this.count != count) {
+            resize(count);
+        }
+    }
+
+    void reset(int count, int defaultSize) {
+        this.count = 0;
+        this.defaultSize = defaultSize;
+        resize(count);
+    }
+
+    /**
+     * Change the number of items keeping the sizes of the first ones. The items added at the end take the default size
+     */
+    void resize(int count) {
+        if (sizes.length < count) {
+            sizes = Arrays.copyOf(sizes, Math.max(count, sizes.length * 2));
+            tree = new int[sizes.length + 1];
+        }
+        for (int i = this.count; i < count; i++) {
+            sizes[i] = defaultSize;
+        }
+        this.count = count;
+        tree[0] = 0;
+        for (int i = 0; i < count; i++) {
+            tree[i + 1] = sizes[i];
+        }
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= count) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    void set(int index, int size) {
+        if (index < 0 || index >= count) {
+            return;
+        }
+        int diff = size - sizes[index];
+        if (diff == 0) {
+            return;
+        }
+        sizes[index] = size;
+        for (int i = index + 1; i <= count; i += i & -i) {
+            tree[i] += diff;
+        }
+    }
+
+    int getSize(int index) {
+        return sizes[index];
+    }
+
+    /**
+     * @return sum of the sizes of all the items before the given one
+     */
+    int getOffset(int index) {
+        int offset = 0;
+        for (int i = Math.min(index, count); i > 0; i -= i & -i) {
+            offset += tree[i];
+        }
+        return offset;
+    }
+
+    int getTotal() {
+        return getOffset(count);
+    }
+
+    /**
+     * @return index of the item which contains the given offset
+     */
+    int findIndex(int offset) {
+        int index = 0;
+        for (int step = Integer.highestOneBit(count); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= count && tree[next] <= offset) {
+                index = next;
+                offset -= tree[next];
+            }
+        }
+        return Math.min(index, count - 1);
+    }
+}
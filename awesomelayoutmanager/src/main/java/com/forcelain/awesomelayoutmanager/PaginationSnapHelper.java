@@ -0,0 +1,88 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SnapHelper;
+import android.view.View;
+
+/**
+ * Snaps AwesomeLayoutManager's pages in pagination mode. The target page of a fling is computed from its velocity
+ * up front, so the scroll settles in a single animation
+ */
+class PaginationSnapHelper extends SnapHelper {
+
+    private final AwesomeLayoutManager layoutManager;
+
+    PaginationSnapHelper(AwesomeLayoutManager layoutManager) {
+        this.layoutManager = layoutManager;
+    }
+
+    @Override
+    public int[] calculateDistanceToFinalSnap(RecyclerView.LayoutManager lm, View targetView) {
+        int[] distance = new int[2];
+        switch (layoutManager.getOrientation()) {
+            case VERTICAL:
+                int rowStart = layoutManager.getRowStart(layoutManager.getPosition(targetView));
+                if (rowStart != 0 && rowStart == layoutManager.getRowStart(layoutManager.getItemCount() - 1)) {
+                    distance[1] = layoutManager.getDecoratedBottom(targetView) - layoutManager.getHeight();
+                } else {
+                    distance[1] = layoutManager.getDecoratedTop(targetView);
+                }
+                break;
+            case HORIZONTAL:
+                distance[0] = layoutManager.getDecoratedLeft(targetView) - layoutManager.getPageInset();
+                break;
+        }
+        return distance;
+    }
+
+    @Override
+    public View findSnapView(RecyclerView.LayoutManager lm) {
+        if (!layoutManager.isPagination() || layoutManager.isTransitionRunning()) {
+            return null;
+        }
+        return layoutManager.getAnchorView();
+    }
+
+    @Override
+    public int findTargetSnapPosition(RecyclerView.LayoutManager lm, int velocityX, int velocityY) {
+        if (!layoutManager.isPagination() || layoutManager.isTransitionRunning()) {
+            return RecyclerView.NO_POSITION;
+        }
+        View anchorView = layoutManager.getAnchorView();
+        if (anchorView == null) {
+            return RecyclerView.NO_POSITION;
+        }
+        boolean vertical = layoutManager.getOrientation() == AwesomeLayoutManager.Orientation.VERTICAL;
+        int velocity = vertical ? velocityY : velocityX;
+        int anchorPos = layoutManager.getPosition(anchorView);
+        if (Math.abs(velocity) < layoutManager.getFlingVelocityThreshold()) {
+            return anchorPos;
+        }
+
+        int pages = 1;
+        int maxPages = layoutManager.getMaxPagesPerFling();
+        if (maxPages > 1) {
+            int[] distance = calculateScrollDistance(velocityX, velocityY);
+            int pageSize = vertical
+                    ? (int) (layoutManager.getHeight() * layoutManager.getPageHeightFactor())
+                    : layoutManager.getPageStride();
+            if (pageSize > 0) {
+                pages = Math.abs(vertical ? distance[1] : distance[0]) / pageSize;
+                pages = Math.min(Math.max(pages, 1), maxPages);
+            }
+        }
+
+        // the anchor is the first page the fling reaches if it has not got to its resting place in the fling's direction
+        int[] snapDistance = calculateDistanceToFinalSnap(lm, anchorView);
+        int anchorDistance = vertical ? snapDistance[1] : snapDistance[0];
+        boolean anchorAhead = velocity > 0 ? anchorDistance > 0 : anchorDistance < 0;
+        if (anchorAhead) {
+            pages--;
+        }
+        int step = vertical ? pages * layoutManager.getSpanCount() : pages;
+        int position = velocity > 0 ? anchorPos + step : anchorPos - step;
+        position = Math.max(position, 0);
+        position = Math.min(position, layoutManager.getItemCount() - 1);
+        return position;
+    }
+}
@@ -0,0 +1,71 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Arrays;
+
+/**
+ * Finds the adapter position of an item by its stable id. The expected position is checked first,
+ * otherwise the id is looked up in a map of all the items built once per adapter change.
+ * The map is an open addressing hash table on primitive arrays, so neither building it nor a lookup allocates
+ */
+class StableIdIndex {
+
+    private static final int EMPTY = -1;
+
+    private long[] ids = new long[0];
+    private int[] positions = new int[0];
+    private int mask;
+    private boolean valid;
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * @param hint position the item is expected at
+     * @return position of the item or {@link RecyclerView#NO_POSITION} if the adapter has no item with the id
+     */
+    int find(RecyclerView.Adapter adapter, long id, int hint) {
+        int itemCount = adapter.getItemCount();
+        if (hint >= 0 && hint < itemCount && adapter.getItemId(hint) == id) {
+            return hint;
+        }
+        if (!valid) {
+            build(adapter, itemCount);
+        }
+        for (int slot = hash(id); positions[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return positions[slot];
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    private void build(RecyclerView.Adapter adapter, int itemCount) {
+        // at most half full, so that the probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(itemCount, 1)) * 4;
+        if (positions.length < capacity) {
+            ids = new long[capacity];
+            positions = new int[capacity];
+        }
+        mask = positions.length - 1;
+        Arrays.fill(positions, EMPTY);
+        for (int pos = 0; pos < itemCount; pos++) {
+            long id = adapter.getItemId(pos);
+            int slot = hash(id);
+            // an id repeated in the adapter maps to its last position
+            while (positions[slot] != EMPTY && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            positions[slot] = pos;
+        }
+        valid = true;
+    }
+
+    private int hash(long id) {
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
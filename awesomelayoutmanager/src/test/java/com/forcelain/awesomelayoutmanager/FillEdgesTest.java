@@ -0,0 +1,69 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A scroll frame only recycles and adds the children at the edges. The result must be the layout
+ * a full pass produces from the same anchor
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class FillEdgesTest {
+
+    // shorter than the RecyclerView, so that none of them makes a jump
+    private static final int[] STEPS = {37, 120, 5, 260, -90, 410, -333, 799, -12, 640, -799};
+
+    private AwesomeLayoutManager layoutManager;
+    private RecyclerView recyclerView;
+
+    @Before
+    public void setUp() {
+        layoutManager = new AwesomeLayoutManager();
+        recyclerView = TestLayouts.attach(layoutManager, new TestAdapter(100, 300));
+    }
+
+    @Test
+    public void verticalScrollMatchesFullLayout() {
+        assertScrollMatchesFullLayout(false);
+    }
+
+    @Test
+    public void gridScrollMatchesFullLayout() {
+        layoutManager.setSpanCount(3);
+        TestLayouts.layout(recyclerView);
+        assertScrollMatchesFullLayout(false);
+    }
+
+    @Test
+    public void horizontalScrollMatchesFullLayout() {
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        TestLayouts.layout(recyclerView);
+        assertScrollMatchesFullLayout(true);
+    }
+
+    @Test
+    public void peekingPagesScrollMatchesFullLayout() {
+        layoutManager.setPageWidthFactor(0.8f);
+        layoutManager.setPageMargin(12);
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        TestLayouts.layout(recyclerView);
+        assertScrollMatchesFullLayout(true);
+    }
+
+    private void assertScrollMatchesFullLayout(boolean horizontal) {
+        for (int step : STEPS) {
+            recyclerView.scrollBy(horizontal ? step : 0, horizontal ? 0 : step);
+            String scrolled = TestLayouts.describeChildren(layoutManager);
+            TestLayouts.layout(recyclerView);
+            assertEquals("after a scroll by " + step, scrolled, TestLayouts.describeChildren(layoutManager));
+        }
+    }
+}
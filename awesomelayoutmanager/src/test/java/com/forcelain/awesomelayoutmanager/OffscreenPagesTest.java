@@ -0,0 +1,62 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * In {@link AwesomeLayoutManager.Orientation#HORIZONTAL} mode only the pages within the off-screen limit
+ * are bound, however large the adapter is
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class OffscreenPagesTest {
+
+    private static final int[] ITEM_COUNTS = {10, 1000, 100000};
+    private static final int SCROLLED_PAGES = 5;
+
+    @Test
+    public void boundPagesDoNotDependOnItemCount() {
+        int[] expected = countBinds(ITEM_COUNTS[0], 2);
+        for (int i = 1; i < ITEM_COUNTS.length; i++) {
+            int[] binds = countBinds(ITEM_COUNTS[i], 2);
+            assertEquals("pages bound by the layout for " + ITEM_COUNTS[i] + " items", expected[0], binds[0]);
+            assertEquals("pages bound by the scroll for " + ITEM_COUNTS[i] + " items", expected[1], binds[1]);
+        }
+    }
+
+    @Test
+    public void offscreenPageLimitBoundsChildren() {
+        for (int limit = 0; limit <= 3; limit++) {
+            int[] binds = countBinds(ITEM_COUNTS[ITEM_COUNTS.length - 1], limit);
+            assertTrue("pages bound by the layout with the limit " + limit, binds[0] <= 2 * limit + 1);
+            assertTrue("pages bound per scrolled page with the limit " + limit, binds[1] <= SCROLLED_PAGES * (2 * limit + 1));
+        }
+    }
+
+    /**
+     * @return pages bound by the first layout and by scrolling a few pages afterwards
+     */
+    private int[] countBinds(int itemCount, int offscreenPageLimit) {
+        TestAdapter adapter = new TestAdapter(itemCount, 300);
+        AwesomeLayoutManager layoutManager = new AwesomeLayoutManager();
+        layoutManager.setOffscreenPageLimit(offscreenPageLimit);
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        RecyclerView recyclerView = TestLayouts.attach(layoutManager, adapter);
+        int layoutBinds = adapter.bindCount;
+        assertTrue(layoutManager.getChildCount() <= 2 * offscreenPageLimit + 1);
+
+        adapter.bindCount = 0;
+        for (int i = 0; i < SCROLLED_PAGES; i++) {
+            recyclerView.scrollBy(TestLayouts.WIDTH, 0);
+            assertTrue(layoutManager.getChildCount() <= 2 * offscreenPageLimit + 1);
+        }
+        return new int[]{layoutBinds, adapter.bindCount};
+    }
+}
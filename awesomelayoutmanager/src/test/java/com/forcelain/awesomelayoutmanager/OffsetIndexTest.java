@@ -0,0 +1,63 @@
+package com.forcelain.awesomelayoutmanager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OffsetIndexTest {
+
+    private static final int DEFAULT_SIZE = 100;
+
+    private OffsetIndex index;
+
+    @Before
+    public void setUp() {
+        index = new OffsetIndex();
+        index.ensure(10, DEFAULT_SIZE);
+        for (int i = 0; i < 10; i++) {
+            index.set(i, 10 + i);
+        }
+    }
+
+    @Test
+    public void growingKeepsKnownSizes() {
+        int total = index.getTotal();
+        index.ensure(25, DEFAULT_SIZE);
+
+        assertEquals(total + 15 * DEFAULT_SIZE, index.getTotal());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(10 + i, index.getSize(i));
+        }
+        assertEquals(DEFAULT_SIZE, index.getSize(24));
+        assertEquals(total, index.getOffset(10));
+        assertEquals(10, index.findIndex(total));
+    }
+
+    @Test
+    public void shrinkingKeepsKnownSizes() {
+        index.ensure(4, DEFAULT_SIZE);
+        assertEquals(10 + 11 + 12 + 13, index.getTotal());
+
+        // the items added back have not been measured
+        index.ensure(6, DEFAULT_SIZE);
+        assertEquals(10 + 11 + 12 + 13 + 2 * DEFAULT_SIZE, index.getTotal());
+    }
+
+    @Test
+    public void spanCountChangeResetsSizes() {
+        // 10 items in 10 rows become 4 rows of 3
+        index.reset(4, DEFAULT_SIZE);
+        assertEquals(4 * DEFAULT_SIZE, index.getTotal());
+        assertEquals(DEFAULT_SIZE, index.getSize(0));
+
+        index.ensure(4, DEFAULT_SIZE);
+        assertEquals(4 * DEFAULT_SIZE, index.getTotal());
+    }
+
+    @Test
+    public void defaultSizeChangeResetsSizes() {
+        index.ensure(10, 50);
+        assertEquals(10 * 50, index.getTotal());
+    }
+}
@@ -0,0 +1,55 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A fling moves to the next page in its direction from wherever the drag has left the pages,
+ * however many of them the drag has crossed
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class PaginationSnapHelperTest {
+
+    private static final int FLING_VELOCITY = 100000;
+
+    private AwesomeLayoutManager layoutManager;
+    private RecyclerView recyclerView;
+    private PaginationSnapHelper snapHelper;
+
+    @Before
+    public void setUp() {
+        layoutManager = new AwesomeLayoutManager();
+        layoutManager.setPagination(true);
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        recyclerView = TestLayouts.attach(layoutManager, new TestAdapter(20, 300));
+        snapHelper = new PaginationSnapHelper(layoutManager);
+    }
+
+    @Test
+    public void flingFromPageShortOfItsPlace() {
+        // page 2 takes the most of the screen, page 1 still peeks in on the left
+        recyclerView.scrollBy(2 * TestLayouts.WIDTH - TestLayouts.WIDTH / 3, 0);
+        assertEquals(2, layoutManager.getAnchorPosition());
+
+        assertEquals(2, snapHelper.findTargetSnapPosition(layoutManager, FLING_VELOCITY, 0));
+        assertEquals(1, snapHelper.findTargetSnapPosition(layoutManager, -FLING_VELOCITY, 0));
+    }
+
+    @Test
+    public void flingFromPagePastItsPlace() {
+        // page 2 takes the most of the screen, page 3 already peeks in on the right
+        recyclerView.scrollBy(2 * TestLayouts.WIDTH + TestLayouts.WIDTH / 3, 0);
+        assertEquals(2, layoutManager.getAnchorPosition());
+
+        assertEquals(3, snapHelper.findTargetSnapPosition(layoutManager, FLING_VELOCITY, 0));
+        assertEquals(2, snapHelper.findTargetSnapPosition(layoutManager, -FLING_VELOCITY, 0));
+    }
+}
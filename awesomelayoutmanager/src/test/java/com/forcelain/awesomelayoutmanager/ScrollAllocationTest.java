@@ -0,0 +1,111 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * A scroll frame which neither attaches nor recycles a child must not allocate anything.
+ * The frames are driven through the layout manager, so that only its own work and the views' is counted
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class ScrollAllocationTest {
+
+    // far enough from the edges of the layout for 1px frames to keep the same children
+    private static final int START_OFFSET = 5;
+    private static final int FRAMES = 40;
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private AwesomeLayoutManager layoutManager;
+    private RecyclerView recyclerView;
+    private RecyclerView.Recycler recycler;
+    private RecyclerView.State state;
+
+    @Before
+    public void setUp() throws Exception {
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        layoutManager = new AwesomeLayoutManager();
+        recyclerView = TestLayouts.attach(layoutManager, new TestAdapter(100, 200));
+        recycler = (RecyclerView.Recycler) readField(recyclerView, "mRecycler");
+        state = (RecyclerView.State) readField(recyclerView, "mState");
+    }
+
+    @Test
+    public void verticalScrollFrameAllocatesNothing() {
+        assertScrollFramesAllocateNothing(false);
+    }
+
+    @Test
+    public void gridScrollFrameAllocatesNothing() {
+        layoutManager.setSpanCount(2);
+        TestLayouts.layout(recyclerView);
+        assertScrollFramesAllocateNothing(false);
+    }
+
+    @Test
+    public void horizontalScrollFrameAllocatesNothing() {
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        TestLayouts.layout(recyclerView);
+        assertScrollFramesAllocateNothing(true);
+    }
+
+    private void assertScrollFramesAllocateNothing(boolean horizontal) {
+        // the first invalidation schedules a traversal, it stays pending as it does between two frames
+        ShadowLooper.pauseMainLooper();
+        scroll(horizontal, START_OFFSET);
+        // links the call sites and loads the classes on the way
+        scrollBackAndForth(horizontal);
+        String children = TestLayouts.describeChildren(layoutManager);
+
+        long first = allocatedBytes();
+        long overhead = allocatedBytes() - first;
+        long start = allocatedBytes();
+        scrollBackAndForth(horizontal);
+        long allocated = allocatedBytes() - start - overhead;
+
+        assertEquals("the frames have changed the children", children, TestLayouts.describeChildren(layoutManager));
+        assertEquals("bytes allocated by " + 2 * FRAMES + " scroll frames", 0, allocated);
+    }
+
+    private void scrollBackAndForth(boolean horizontal) {
+        for (int i = 0; i < FRAMES; i++) {
+            scroll(horizontal, 1);
+        }
+        for (int i = 0; i < FRAMES; i++) {
+            scroll(horizontal, -1);
+        }
+    }
+
+    private void scroll(boolean horizontal, int delta) {
+        if (horizontal) {
+            layoutManager.scrollHorizontallyBy(delta, recycler, state);
+        } else {
+            layoutManager.scrollVerticallyBy(delta, recycler, state);
+        }
+    }
+
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static Object readField(RecyclerView recyclerView, String name) throws Exception {
+        Field field = RecyclerView.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(recyclerView);
+    }
+}
@@ -0,0 +1,77 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class StableIdIndexTest {
+
+    @Test
+    public void findsEveryId() {
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++) {
+            // ids which only differ in the high bits or by the sign must not collide for good
+            ids[i] = (i % 2 == 0 ? (long) i << 32 : -i) * 31;
+        }
+        IdAdapter adapter = new IdAdapter(ids);
+        StableIdIndex index = new StableIdIndex();
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, index.find(adapter, ids[i], RecyclerView.NO_POSITION));
+        }
+        assertEquals(RecyclerView.NO_POSITION, index.find(adapter, 7, RecyclerView.NO_POSITION));
+    }
+
+    @Test
+    public void invalidateFollowsAdapterChanges() {
+        IdAdapter adapter = new IdAdapter(new long[]{10, 20, 30});
+        StableIdIndex index = new StableIdIndex();
+        assertEquals(2, index.find(adapter, 30, 0));
+
+        adapter.ids = new long[]{30, 40, 50, 60, 70, 80};
+        index.invalidate();
+        assertEquals(0, index.find(adapter, 30, 2));
+        assertEquals(5, index.find(adapter, 80, 2));
+        assertEquals(RecyclerView.NO_POSITION, index.find(adapter, 20, 2));
+
+        adapter.ids = new long[0];
+        index.invalidate();
+        assertEquals(RecyclerView.NO_POSITION, index.find(adapter, 30, 0));
+    }
+
+    private static class IdAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        long[] ids;
+
+        IdAdapter(long[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return ids[position];
+        }
+
+        @Override
+        public int getItemCount() {
+            return ids.length;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
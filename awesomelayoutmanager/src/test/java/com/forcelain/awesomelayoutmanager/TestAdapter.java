@@ -0,0 +1,73 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Plain views whose height depends on the position, so that neighbour rows differ. Counts the bound views
+ */
+class TestAdapter extends RecyclerView.Adapter<TestAdapter.Holder> {
+
+    private final int itemHeight;
+    private int itemCount;
+    int bindCount;
+
+    TestAdapter(int itemCount, int itemHeight) {
+        this.itemCount = itemCount;
+        this.itemHeight = itemHeight;
+    }
+
+    void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new Holder(new ItemView(parent.getContext()));
+    }
+
+    @Override
+    public void onBindViewHolder(Holder holder, int position) {
+        bindCount++;
+        holder.view.setHeight(itemHeight + position % 3 * itemHeight / 4);
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    static class Holder extends RecyclerView.ViewHolder {
+
+        final ItemView view;
+
+        Holder(ItemView view) {
+            super(view);
+            this.view = view;
+        }
+    }
+
+    static class ItemView extends View {
+
+        private int height;
+
+        ItemView(Context context) {
+            super(context);
+        }
+
+        void setHeight(int height) {
+            if (height != this.height) {
+                this.height = height;
+                requestLayout();
+            }
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+        }
+    }
+}
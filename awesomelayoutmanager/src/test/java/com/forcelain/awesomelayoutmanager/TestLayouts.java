@@ -0,0 +1,60 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+
+/**
+ * Puts a RecyclerView of a fixed size into a visible activity and lays it out on demand
+ */
+final class TestLayouts {
+
+    static final int WIDTH = 480;
+    static final int HEIGHT = 800;
+
+    private TestLayouts() {
+    }
+
+    static RecyclerView attach(RecyclerView.LayoutManager layoutManager, RecyclerView.Adapter adapter) {
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create();
+        RecyclerView recyclerView = new RecyclerView(controller.get());
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        controller.get().setContentView(recyclerView, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        controller.start().resume().visible();
+        layout(recyclerView);
+        return recyclerView;
+    }
+
+    /**
+     * Runs a layout pass, which lays out all the children from scratch unless a transition has been committed
+     */
+    static void layout(RecyclerView recyclerView) {
+        recyclerView.requestLayout();
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * @return adapter positions, decorated bounds and scales of the children in their order
+     */
+    static String describeChildren(RecyclerView.LayoutManager layoutManager) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < layoutManager.getChildCount(); i++) {
+            View view = layoutManager.getChildAt(i);
+            sb.append(layoutManager.getPosition(view))
+                    .append(": [").append(layoutManager.getDecoratedLeft(view))
+                    .append(", ").append(layoutManager.getDecoratedTop(view))
+                    .append(", ").append(layoutManager.getDecoratedRight(view))
+                    .append(", ").append(layoutManager.getDecoratedBottom(view))
+                    .append("] x").append(view.getScaleX())
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+}
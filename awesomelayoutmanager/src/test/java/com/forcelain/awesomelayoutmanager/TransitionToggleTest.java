@@ -0,0 +1,162 @@
+package com.forcelain.awesomelayoutmanager;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Opening and closing while a transition is running takes the children over from it,
+ * so there is never more than one transition animated
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class TransitionToggleTest {
+
+    private static final int TOGGLES = 9;
+    // long enough for none of the transitions to finish between the toggles
+    private static final int TRANSITION_DURATION_MS = 1000;
+    private static final int MAX_TASKS = 10000;
+    // only its top peeks in at the bottom, the item above it takes more of the screen
+    private static final int PEEKING_POS = 2;
+
+    private AwesomeLayoutManager layoutManager;
+    private RecyclerView recyclerView;
+
+    @Before
+    public void setUp() {
+        layoutManager = new AwesomeLayoutManager();
+        layoutManager.setTransitionDuration(TRANSITION_DURATION_MS);
+        recyclerView = TestLayouts.attach(layoutManager, new TestAdapter(20, 300));
+    }
+
+    @Test
+    public void rapidTogglingRunsOneTransitionAtATime() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        for (int i = 0; i < TOGGLES; i++) {
+            if (i % 2 == 0) {
+                layoutManager.openItem(PEEKING_POS);
+            } else {
+                layoutManager.close();
+            }
+            assertTrue("toggle " + i + " has not started a transition", layoutManager.isTransitionRunning());
+            // the close reverses the open of the same page
+            assertEquals("target of toggle " + i, PEEKING_POS, layoutManager.getTransitionTargetPosition());
+            assertEquals("animations after toggle " + i, 1, getAnimationCount());
+            // the layout pass the transition requests and a few frames
+            for (int task = 0; task <= i % 3; task++) {
+                ShadowLooper.runMainLooperOneTask();
+                assertTrue("animations after toggle " + i, getAnimationCount() <= 1);
+            }
+            assertEquals(AwesomeLayoutManager.Orientation.VERTICAL, layoutManager.getOrientation());
+        }
+
+        finishTransition();
+        assertEquals(AwesomeLayoutManager.Orientation.HORIZONTAL, layoutManager.getOrientation());
+        assertEquals(PEEKING_POS, layoutManager.getAnchorPosition());
+    }
+
+    @Test
+    public void openReversesRunningClose() throws Exception {
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        TestLayouts.layout(recyclerView);
+
+        ShadowLooper.pauseMainLooper();
+        layoutManager.close();
+        ShadowLooper.runMainLooperOneTask();
+        ShadowLooper.runMainLooperOneTask();
+        assertTrue(layoutManager.isTransitionRunning());
+
+        layoutManager.openItem(0);
+        assertEquals(1, getAnimationCount());
+        finishTransition();
+        assertEquals(AwesomeLayoutManager.Orientation.HORIZONTAL, layoutManager.getOrientation());
+        assertEquals(0, layoutManager.getAnchorPosition());
+    }
+
+    @Test
+    public void openIsIgnoredWithoutRunningClose() {
+        layoutManager.setOrientation(AwesomeLayoutManager.Orientation.HORIZONTAL);
+        TestLayouts.layout(recyclerView);
+
+        layoutManager.openItem(0);
+        assertFalse(layoutManager.isTransitionRunning());
+    }
+
+    @Test
+    public void closeIsIgnoredWithoutOpenPage() {
+        String children = TestLayouts.describeChildren(layoutManager);
+
+        layoutManager.close();
+        assertFalse(layoutManager.isTransitionRunning());
+        assertFalse(layoutManager.beginClose());
+        assertEquals(children, TestLayouts.describeChildren(layoutManager));
+    }
+
+    @Test
+    public void scrollToPositionDuringTransitionIsKept() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        layoutManager.openItem(PEEKING_POS);
+        ShadowLooper.runMainLooperOneTask();
+        recyclerView.scrollToPosition(10);
+        assertTrue(layoutManager.isTransitionRunning());
+
+        finishTransition();
+        assertEquals(AwesomeLayoutManager.Orientation.HORIZONTAL, layoutManager.getOrientation());
+        assertEquals(10, layoutManager.getAnchorPosition());
+    }
+
+    @Test
+    public void openFromGridMeasuresOnlyOffscreenPages() throws Exception {
+        layoutManager.setSpanCount(3);
+        TestLayouts.layout(recyclerView);
+        final int[] maxMeasured = new int[1];
+        layoutManager.setLayoutMetricsListener(new LayoutMetricsListener() {
+            @Override
+            public void onLayoutPass(Pass pass, long durationNanos, int viewsBound, int viewsRecycled, int viewsReused, int viewsMeasured) {
+                if (pass == Pass.LAYOUT) {
+                    maxMeasured[0] = Math.max(maxMeasured[0], viewsMeasured);
+                }
+            }
+
+            @Override
+            public void onTransitionFinished(long durationNanos, int frames, int droppedFrames) {
+            }
+        });
+
+        ShadowLooper.pauseMainLooper();
+        layoutManager.openItem(PEEKING_POS);
+        finishTransition();
+        assertEquals(AwesomeLayoutManager.Orientation.HORIZONTAL, layoutManager.getOrientation());
+        // the page and 2 off-screen pages on each side
+        assertTrue("views measured by a layout pass: " + maxMeasured[0], maxMeasured[0] <= 5);
+    }
+
+    /**
+     * Runs the frames up to the end of the transition and the layout pass it commits
+     */
+    private void finishTransition() throws Exception {
+        for (int task = 0; task < MAX_TASKS && layoutManager.isTransitionRunning(); task++) {
+            ShadowLooper.runMainLooperOneTask();
+        }
+        assertFalse("the transition has not finished", layoutManager.isTransitionRunning());
+        assertEquals(0, getAnimationCount());
+        ShadowLooper.unPauseMainLooper();
+        TestLayouts.layout(recyclerView);
+    }
+
+    /**
+     * @return number of the animators running on the main thread
+     */
+    private static int getAnimationCount() throws Exception {
+        return (Integer) Class.forName("android.animation.AnimationHandler").getMethod("getAnimationCount").invoke(null);
+    }
+}